@@ -69,4 +69,40 @@ create table if not exists question_bank_question
     createTime     datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime     datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
     UNIQUE (questionBankId, questionId)
-) comment '题库题目' collate = utf8mb4_unicode_ci;
\ No newline at end of file
+) comment '题库题目' collate = utf8mb4_unicode_ci;
+
+-- 题目 ES 同步发件箱（硬删除）
+-- 题目和题库题目的写入由触发器在同一事务中登记，IncSyncQuestionToEs 按 id 顺序消费，同步成功后删除
+-- 只有题库关系变化的题目在 ES 中只更新 questionBankIds
+create table if not exists question_es_outbox
+(
+    id         bigint auto_increment comment 'id' primary key,
+    questionId bigint                             not null comment '题目 id',
+    type       tinyint  default 0                 not null comment '变更类型：0-题目，1-题库关系',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间'
+) comment '题目 ES 同步发件箱' collate = utf8mb4_unicode_ci;
+
+drop trigger if exists question_after_insert_outbox;
+create trigger question_after_insert_outbox after insert on question
+    for each row insert into question_es_outbox (questionId) values (new.id);
+
+-- 逻辑删除也是更新，同步后 ES 中的 isDelete 为 1
+drop trigger if exists question_after_update_outbox;
+create trigger question_after_update_outbox after update on question
+    for each row insert into question_es_outbox (questionId) values (new.id);
+
+drop trigger if exists question_after_delete_outbox;
+create trigger question_after_delete_outbox after delete on question
+    for each row insert into question_es_outbox (questionId) values (old.id);
+
+drop trigger if exists question_bank_question_after_insert_outbox;
+create trigger question_bank_question_after_insert_outbox after insert on question_bank_question
+    for each row insert into question_es_outbox (questionId, type) values (new.questionId, 1);
+
+drop trigger if exists question_bank_question_after_update_outbox;
+create trigger question_bank_question_after_update_outbox after update on question_bank_question
+    for each row insert into question_es_outbox (questionId, type) values (old.questionId, 1), (new.questionId, 1);
+
+drop trigger if exists question_bank_question_after_delete_outbox;
+create trigger question_bank_question_after_delete_outbox after delete on question_bank_question
+    for each row insert into question_es_outbox (questionId, type) values (old.questionId, 1);
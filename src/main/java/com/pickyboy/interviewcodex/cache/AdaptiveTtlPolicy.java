@@ -0,0 +1,149 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+
+/**
+ * 自适应过期时间
+ * <p>
+ * 按缓存键统计读取次数和失效次数（本节点的读取，全集群的失效：本节点删除和收到的失效广播都会计入），
+ * 以“每次失效对应的读取次数”衡量读写比：
+ * <ul>
+ *     <li>达到 adaptiveTtlReadsPerInvalidation 时使用注解的 expireTime；</li>
+ *     <li>读多写少的键按比例延长，最多 adaptiveTtlMaxFactor 倍，且不超过 adaptiveTtlMaxExpireTime；</li>
+ *     <li>被失效过且读取较少的键按比例缩短，最少 adaptiveTtlMinFactor 倍；</li>
+ *     <li>样本不足时使用 expireTime。</li>
+ * </ul>
+ * 计数每过一个 adaptiveTtlWindow 减半（访问时惰性计算），反映最近的读写情况。
+ * 数据仍然依靠显式失效保证一致，延长过期时间不会增加读到旧值的风险。随机过期时间仍然在此结果上叠加。
+ * 开启 refreshAhead 时软过期时间随实际过期时间平移，见 refreshAfter。
+ *
+ * @author pickyboy
+ */
+public class AdaptiveTtlPolicy {
+
+    /**
+     * 计算比例所需的最少样本（读取 + 失效）
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    private final AutoCacheProperties properties;
+
+    private final Cache<String, KeyStats> stats;
+
+    public AdaptiveTtlPolicy(AutoCacheProperties properties) {
+        this.properties = properties;
+        this.stats = Caffeine.newBuilder()
+                .maximumSize(properties.getAdaptiveTtlMaxTracked())
+                .build();
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void recordRead(String cacheKey) {
+        stats.get(cacheKey, k -> new KeyStats()).add(currentEpoch(), 1, 0);
+    }
+
+    /**
+     * 记录一次失效，只统计已经被跟踪的键
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void recordInvalidation(String cacheKey) {
+        KeyStats keyStats = stats.getIfPresent(cacheKey);
+        if (keyStats != null) {
+            keyStats.add(currentEpoch(), 0, 1);
+        }
+    }
+
+    /**
+     * 计算缓存键的过期时间
+     *
+     * @param cacheKey 完整缓存键
+     * @param expireTime 注解配置的过期时间（秒）
+     * @return 调整后的过期时间（秒），不含随机部分
+     */
+    public int expireTime(String cacheKey, int expireTime) {
+        KeyStats keyStats = stats.getIfPresent(cacheKey);
+        if (keyStats == null) {
+            return expireTime;
+        }
+        double factor = factor(keyStats.snapshot(currentEpoch()));
+        long adjusted = Math.round(expireTime * factor);
+        if (factor > 1) {
+            adjusted = Math.min(adjusted, Math.max(expireTime, properties.getAdaptiveTtlMaxExpireTime()));
+        }
+        return (int) Math.max(1, adjusted);
+    }
+
+    /**
+     * 计算软过期时间：真正过期之前保留注解配置的刷新窗口（expireTime - refreshAhead），
+     * 但不早于按比例缩放的 refreshAhead，否则缩短后的过期时间小于刷新窗口时写入即软过期，每次读取都会触发刷新
+     *
+     * @param ttl 实际写入的过期时间（秒）
+     * @param expireTime 注解配置的过期时间（秒）
+     * @param refreshAhead 注解配置的软过期时间（秒）
+     * @return 写入多少秒后软过期
+     */
+    public static int refreshAfter(int ttl, int expireTime, int refreshAhead) {
+        int proportional = expireTime > 0 ? (int) ((long) ttl * Math.min(refreshAhead, expireTime) / expireTime) : 0;
+        return Math.max(proportional, ttl - Math.max(0, expireTime - refreshAhead));
+    }
+
+    private double factor(double[] readsAndInvalidations) {
+        double reads = readsAndInvalidations[0];
+        double invalidations = readsAndInvalidations[1];
+        if (reads + invalidations < MIN_SAMPLES) {
+            return 1;
+        }
+        double factor = reads / (invalidations + 1) / properties.getAdaptiveTtlReadsPerInvalidation();
+        // 从未失效的键只延长不缩短，冷门键不会因为读取少而更早过期
+        double min = invalidations < 1 ? 1 : properties.getAdaptiveTtlMinFactor();
+        return Math.max(min, Math.min(properties.getAdaptiveTtlMaxFactor(), factor));
+    }
+
+    private long currentEpoch() {
+        return System.currentTimeMillis() / (properties.getAdaptiveTtlWindow() * 1000L);
+    }
+
+    /**
+     * 单个键的计数
+     */
+    private static class KeyStats {
+
+        private long epoch;
+
+        private double reads;
+
+        private double invalidations;
+
+        synchronized void add(long currentEpoch, int readCount, int invalidationCount) {
+            decay(currentEpoch);
+            reads += readCount;
+            invalidations += invalidationCount;
+        }
+
+        synchronized double[] snapshot(long currentEpoch) {
+            decay(currentEpoch);
+            return new double[]{reads, invalidations};
+        }
+
+        private void decay(long currentEpoch) {
+            if (epoch == currentEpoch) {
+                return;
+            }
+            // 每经过一个窗口减半，超过 62 个窗口直接清零
+            long elapsed = currentEpoch - epoch;
+            if (epoch != 0 && elapsed > 0) {
+                double scale = elapsed >= 62 ? 0 : 1.0 / (1L << elapsed);
+                reads *= scale;
+                invalidations *= scale;
+            }
+            epoch = currentEpoch;
+        }
+    }
+}
@@ -70,4 +70,106 @@ public @interface AutoCache {
      * @return
      */
     boolean enableL1() default true;
+
+    /**
+     * 本地缓存最大权重（KB），小于等于0时使用 CacheSceneEnum 或全局配置
+     * 同一场景共用一个本地缓存实例
+     * @return
+     */
+    int localMaximumWeight() default -1;
+
+    /**
+     * 本地缓存过期时间（秒），小于等于0时使用 CacheSceneEnum 或全局配置
+     * 不会超过 expireTime
+     * @return
+     */
+    int localExpireTime() default -1;
+
+    /**
+     * 软过期时间（秒），大于0时开启 refresh-ahead
+     * 值写入超过该时间后，读请求直接返回旧值并异步刷新，同一个key集群内只有一个节点刷新
+     * 应小于 expireTime，否则值会先被 Redis 删除
+     * @return
+     */
+    int refreshAhead() default 0;
+
+    /**
+     * 是否为批量查询，默认为 false
+     * 当为 true 时，keyExpression 应该返回方法参数中的 ID 列表，方法返回 Map<ID, 值>，
+     * 切面只把未命中的 ID 传给原方法，原方法返回结果中缺少的 ID 按空值缓存
+     * @return
+     */
+    boolean isBatch() default false;
+
+    /**
+     * 缓存标签，SpEL 表达式，结果可以是字符串或字符串集合，可以通过 #result 引用返回值
+     * 写入缓存时登记到标签索引，@CacheEvict(tags) 按标签删除所有依赖的缓存键
+     * <pre>
+     *     'bank:' + #id
+     *     #result == null ? null : #result.questionList.![ 'question:' + id ]
+     * </pre>
+     * 批量查询时 #result 为单个ID对应的值
+     * @return
+     */
+    String[] tags() default {};
+
+    /**
+     * 是否记录访问热度并参与预热
+     * 开启后该场景需要提供 CacheWarmUpHandler，启动或管理员触发时按热度预热前 N 个键
+     * @return
+     */
+    boolean warmUp() default false;
+
+    /**
+     * ID 布隆过滤器名称，为空表示不使用
+     * 查询前先判断 ID 是否可能存在，一定不存在时直接返回 null，不访问 Redis 和数据库
+     * 批量查询时逐个判断 keyExpression 返回的 ID
+     * @return
+     */
+    String bloomFilter() default "";
+
+    /**
+     * 交给布隆过滤器判断的 ID 的 SpEL 表达式，为空时使用 keyExpression
+     * <pre>
+     *     #id
+     * </pre>
+     * @return
+     */
+    String bloomFilterKey() default "";
+
+    /**
+     * 是否异步写入 Redis，默认为 false
+     * 开启后回源结果放入写入队列由后台线程批量写入，本地缓存仍然立即写入；
+     * 开启击穿防护时分布式锁在值写入 Redis 之后才释放
+     * @return
+     */
+    boolean asyncWrite() default false;
+
+    /**
+     * 是否按读写比自适应调整过期时间，默认为 false
+     * 读多且很少失效的键延长 expireTime，频繁失效的键缩短，随机过期时间仍然叠加在调整后的值上
+     * @return
+     */
+    boolean adaptiveTtl() default false;
+
+    /**
+     * Hash 字段，SpEL 表达式，为空表示不使用 Hash 模式
+     * 开启后 keyExpression 对应一个实体，缓存键保存为 Redis Hash，每个变体或投影是其中一个字段：
+     * 读取只取需要的字段（HGET），写入只更新一个字段并顺延整个 Hash 的过期时间，失效时删除整个键即可清除所有变体。
+     * 同一个实体的各字段只应在实体不存在时返回 null，空值占位符会把整个 Hash 的过期时间缩短为 nullTtl。
+     * 不支持批量查询
+     * <pre>
+     *     'header'
+     *     'questions:page' + #current
+     * </pre>
+     * @return
+     */
+    String hashField() default "";
+
+    /**
+     * 缓存值的结构版本，会加入 Redis 键（Hash 模式加在字段名上）
+     * 默认根据返回值类型的字段结构自动计算，自动计算识别不到的格式变化（例如修改了 Jackson 注解）时手动指定
+     * @return
+     */
+    String schemaVersion() default "";
 }
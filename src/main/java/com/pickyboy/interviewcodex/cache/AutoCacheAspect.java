@@ -1,33 +1,38 @@
 package com.pickyboy.interviewcodex.cache;
 
 import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.TypeFactory;
-import com.jd.platform.hotkey.client.callback.JdHotKeyStore;
+import com.pickyboy.interviewcodex.cache.codec.CacheFrame;
+import com.pickyboy.interviewcodex.cache.codec.CacheValueSerializer;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageLock;
 import com.pickyboy.interviewcodex.common.ResultUtils;
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.redisson.api.RBucket;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.StandardReflectionParameterNameDiscoverer;
 import org.springframework.core.annotation.Order;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -40,31 +45,102 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class AutoCacheAspect {
 
-    private final RedissonClient redissonClient;
+    private final CacheStorage storage;
 
-    private final ObjectMapper objectMapper;
+    private final CacheValueSerializer serializer;
+
+    private final LocalCacheManager localCacheManager;
+
+    private final SpelKeyResolver keyResolver;
+
+    private final CacheTagIndex cacheTagIndex;
+
+    private final AutoCacheMetrics metrics;
+
+    private final CacheAccessRecorder accessRecorder;
+
+    private final IdBloomFilterManager idBloomFilterManager;
+
+    private final CacheWriteBehindQueue writeBehindQueue;
+
+    private final AdaptiveTtlPolicy adaptiveTtlPolicy;
+
+    private final CacheSchemaRegistry schemaRegistry;
+
+    private final CacheInvalidationFence fence;
+
+    /**
+     * 异步刷新线程池（有界），用于 refreshAhead
+     */
+    private final ThreadPoolExecutor refreshExecutor;
+
+    /**
+     * 本节点正在刷新的key，避免同一个key重复提交刷新任务
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 本节点内的请求合并,等待时间与分布式锁的租期一致
+     */
+    private final SingleFlight singleFlight = new SingleFlight(10000);
 
     private final Random random = new Random();
 
-    public AutoCacheAspect(RedissonClient redissonClient, ObjectMapper objectMapper) {
-        this.redissonClient = redissonClient;
-        this.objectMapper = objectMapper;
+    /**
+     * 命中空值缓存时 getCachedValue 返回的标记,按引用比较
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    public AutoCacheAspect(CacheStorage storage, CacheValueSerializer serializer, LocalCacheManager localCacheManager,
+                           SpelKeyResolver keyResolver, CacheTagIndex cacheTagIndex, AutoCacheMetrics metrics,
+                           CacheAccessRecorder accessRecorder, IdBloomFilterManager idBloomFilterManager,
+                           CacheWriteBehindQueue writeBehindQueue, AdaptiveTtlPolicy adaptiveTtlPolicy,
+                           CacheSchemaRegistry schemaRegistry, CacheInvalidationFence fence,
+                           ThreadPoolExecutor refreshExecutor) {
+        this.storage = storage;
+        this.serializer = serializer;
+        this.localCacheManager = localCacheManager;
+        this.keyResolver = keyResolver;
+        this.cacheTagIndex = cacheTagIndex;
+        this.metrics = metrics;
+        this.accessRecorder = accessRecorder;
+        this.idBloomFilterManager = idBloomFilterManager;
+        this.writeBehindQueue = writeBehindQueue;
+        this.adaptiveTtlPolicy = adaptiveTtlPolicy;
+        this.schemaRegistry = schemaRegistry;
+        this.fence = fence;
+        this.refreshExecutor = refreshExecutor;
     }
 
 
     @Around("@annotation(autoCache)")
     public Object cache(ProceedingJoinPoint joinPoint, AutoCache autoCache) throws Throwable {
+        if (autoCache.isBatch()) {
+            if (!autoCache.hashField().isEmpty()) {
+                throw new AutoCacheException("Batch cache does not support hashField: " + joinPoint.getSignature());
+            }
+            return cacheBatch(joinPoint, autoCache);
+        }
+        // 0. 布隆过滤器判断一定不存在的ID直接返回
+        if (!autoCache.bloomFilter().isEmpty() && !mightExist(autoCache, joinPoint)) {
+            metrics.bloomReject(autoCache.scene());
+            log.debug("Bloom filter rejected, scene: {}", autoCache.scene());
+            return null;
+        }
         // 1. 构造缓存键
         String cacheKey = generateCacheKey(autoCache, joinPoint);
+        if (autoCache.adaptiveTtl()) {
+            adaptiveTtlPolicy.recordRead(cacheKey);
+        }
 
         // 2. 先尝试从缓存获取
         // 包括L1和L2缓存
-        Object cachedValue = getCachedValue(cacheKey, joinPoint, autoCache);
+        Object cachedValue = getCachedValue(cacheKey, joinPoint, autoCache, true);
         // 缓存命中
         if (cachedValue != null) {
             // 缓存空结果,不是真的缓存null,而是空值占位符,真的null可能只是键不存在
             // 检查是否为空值标识
-            if (isNullPlaceholder(cachedValue)) {
+            if (cachedValue == NULL_VALUE) {
                 // 拿到缓存空值,返回null,避免缓存穿透
                 log.debug("Cache hit with null value for key: {}", cacheKey);
                 return null;
@@ -74,273 +150,714 @@ public class AutoCacheAspect {
         }
 
         // 3. 缓存未命中，处理缓存击穿防护
+        metrics.miss(autoCache.scene());
         if (autoCache.enableBreakdownProtection()) {
             return executeWithBreakdownProtection(cacheKey, joinPoint, autoCache);
         } else {
             // 直接执行原方法
             log.debug("Cache miss for key: {}, executing original method", cacheKey);
-            Object result = joinPoint.proceed();
-            cacheResult(cacheKey, result, autoCache);
+            long ticket = fence.ticket();
+            Object result = proceed(joinPoint, autoCache);
+            cacheResult(cacheKey, result, autoCache, joinPoint, ticket, null);
             return result;
         }
     }
 
+    /**
+     * 批量查询
+     * 先查本地缓存,剩余的key一次 MGET 查 Redis,仍未命中的ID一次性交给原方法加载,最后用一个批处理回写
+     * Redis 中已软过期的值照常返回,这些ID合并成一次批量调用异步刷新
+     * 批量查询不走 single-flight 和分布式锁,单个key的击穿防护仍由单条查询负责
+     */
+    private Object cacheBatch(ProceedingJoinPoint joinPoint, AutoCache autoCache) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        Object keyResult = keyResolver.resolve(autoCache.keyExpression(), method, args);
+        int argIndex = indexOfArg(args, keyResult);
+        if (!(keyResult instanceof Collection) || argIndex < 0) {
+            throw new AutoCacheException("Batch cache keyExpression must reference a collection parameter: " + method);
+        }
+        Collection<?> ids = (Collection<?>) keyResult;
+        Map<Object, Object> found = new HashMap<>();
+        // 值为空值占位符的ID,不返回也不再加载
+        Set<Object> nullIds = new LinkedHashSet<>();
+
+        // 1. L1 本地缓存
+        Map<String, Object> missing = new LinkedHashMap<>();
+        for (Object id : ids) {
+            if (id == null) {
+                continue;
+            }
+            if (!autoCache.bloomFilter().isEmpty() && !idBloomFilterManager.mightContain(autoCache.bloomFilter(), id)) {
+                metrics.bloomReject(autoCache.scene());
+                continue;
+            }
+            String cacheKey = autoCache.scene() + "::" + id;
+            if (autoCache.adaptiveTtl()) {
+                adaptiveTtlPolicy.recordRead(cacheKey);
+            }
+            Object localValue = localCacheManager.get(autoCache, cacheKey);
+            if (localValue != null) {
+                metrics.l1Hit(autoCache.scene());
+                found.put(id, localValue);
+            } else {
+                missing.put(cacheKey, id);
+            }
+        }
+
+        // 已软过期的ID,照常返回旧值,之后异步刷新
+        Map<String, Object> softExpired = new LinkedHashMap<>();
+
+        // 2. L2 一次 MGET,Redis 键带上结构版本
+        if (!missing.isEmpty()) {
+            String version = schemaRegistry.version(autoCache, method);
+            Map<String, String> redisKeys = new HashMap<>();
+            for (String cacheKey : missing.keySet()) {
+                redisKeys.put(CacheSchemaRegistry.redisKey(cacheKey, version), cacheKey);
+            }
+            long ticket = fence.ticket();
+            Map<String, byte[]> redisValues = storage.getAll(redisKeys.keySet());
+            JavaType valueType = serializer.resolveType(method).getContentType();
+            for (Map.Entry<String, byte[]> redisEntry : redisValues.entrySet()) {
+                byte[] bytes = redisEntry.getValue();
+                String cacheKey = redisKeys.get(redisEntry.getKey());
+                Object id = cacheKey == null ? null : missing.get(cacheKey);
+                if (bytes == null || id == null) {
+                    continue;
+                }
+                if (CacheValueSerializer.isNullFrame(bytes)) {
+                    metrics.nullHit(autoCache.scene());
+                    nullIds.add(id);
+                    missing.remove(cacheKey);
+                    continue;
+                }
+                CacheFrame frame = serializer.deserialize(bytes, valueType);
+                if (frame == null) {
+                    metrics.deserializeFailure(autoCache.scene());
+                }
+                if (frame != null && frame.getValue() != null) {
+                    metrics.l2Hit(autoCache.scene());
+                    found.put(id, frame.getValue());
+                    if (frame.isSoftExpired()) {
+                        softExpired.put(cacheKey, id);
+                    }
+                    fence.runIfCurrent(cacheKey, ticket,
+                            () -> localCacheManager.put(autoCache, cacheKey, frame.getValue(), frame.getSize()));
+                    missing.remove(cacheKey);
+                }
+            }
+        }
+
+        if (!softExpired.isEmpty()) {
+            submitBatchRefresh(joinPoint, autoCache, argIndex, softExpired);
+        }
+
+        // 3. 只把仍未命中的ID交给原方法,一次性加载后用一个批处理回写
+        if (!missing.isEmpty()) {
+            metrics.miss(autoCache.scene(), missing.size());
+            long ticket = fence.ticket();
+            long start = System.nanoTime();
+            Map<?, ?> loaded = (Map<?, ?>) joinPoint.proceed(batchArgs(joinPoint, argIndex, missing.values()));
+            metrics.load(autoCache.scene(), System.nanoTime() - start);
+            cacheBatchResult(missing, loaded, autoCache, joinPoint, ticket);
+            if (loaded != null) {
+                found.putAll(loaded);
+            }
+        }
+        log.debug("Batch cache for scene: {}, requested: {}, loaded: {}, null: {}",
+                autoCache.scene(), ids.size(), missing.size(), nullIds.size());
+
+        // 按请求顺序返回
+        Map<Object, Object> result = new LinkedHashMap<>();
+        for (Object id : ids) {
+            Object value = found.get(id);
+            if (value != null) {
+                result.put(id, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 把 ID 参数替换为给定的 ID,集合类型与原参数兼容
+     */
+    private Object[] batchArgs(ProceedingJoinPoint joinPoint, int argIndex, Collection<Object> ids) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] loadArgs = joinPoint.getArgs().clone();
+        Class<?> parameterType = method.getParameterTypes()[argIndex];
+        loadArgs[argIndex] = parameterType.isAssignableFrom(ArrayList.class)
+                ? new ArrayList<>(ids) : new LinkedHashSet<>(ids);
+        return loadArgs;
+    }
+
+    /**
+     * 批量查询中软过期的ID一次性异步刷新
+     * 和批量查询一样不走分布式锁,本节点通过 refreshingKeys 去重,正在刷新的ID不重复提交
+     */
+    private void submitBatchRefresh(ProceedingJoinPoint joinPoint, AutoCache autoCache, int argIndex,
+                                    Map<String, Object> softExpired) {
+        softExpired.keySet().removeIf(cacheKey -> !refreshingKeys.add(cacheKey));
+        if (softExpired.isEmpty()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long ticket = fence.ticket();
+                    long start = System.nanoTime();
+                    Map<?, ?> loaded = (Map<?, ?>) joinPoint.proceed(batchArgs(joinPoint, argIndex, softExpired.values()));
+                    metrics.load(autoCache.scene(), System.nanoTime() - start);
+                    cacheBatchResult(softExpired, loaded, autoCache, joinPoint, ticket);
+                    log.debug("Refreshed {} batch cache keys for scene: {}", softExpired.size(), autoCache.scene());
+                } catch (Throwable e) {
+                    // 刷新失败不影响读请求,旧值会一直用到真正过期
+                    log.warn("Refresh batch cache failed for scene: {}, error: {}", autoCache.scene(), e.getMessage());
+                } finally {
+                    refreshingKeys.removeAll(softExpired.keySet());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 刷新线程池已满,本次放弃刷新,等待下一次读取再触发
+            refreshingKeys.removeAll(softExpired.keySet());
+            log.debug("Batch refresh task rejected for scene: {}", autoCache.scene());
+        }
+    }
+
+    /**
+     * 批量回写,原方法没有返回的ID写入空值占位符,标签中的 #result 为单个ID对应的值
+     * 同步写入时整个批处理无法放在失效栅栏的锁内,写入前跳过已失效的key,写入后再删除期间被失效的key
+     */
+    private void cacheBatchResult(Map<String, Object> missing, Map<?, ?> loaded, AutoCache autoCache,
+                                  ProceedingJoinPoint joinPoint, long ticket) {
+        int nullTtl = autoCache.nullTtl() > 0 ? autoCache.nullTtl() : 60;
+        String version = schemaRegistry.version(autoCache, ((MethodSignature) joinPoint.getSignature()).getMethod());
+        CacheStorageBatch batch = storage.batch();
+        Map<String, byte[]> written = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : missing.entrySet()) {
+            String cacheKey = entry.getKey();
+            Object value = loaded == null ? null : loaded.get(entry.getValue());
+            Set<String> tags = resolveTags(autoCache, joinPoint, value);
+            if (tags == null || fence.isStale(cacheKey, ticket)) {
+                continue;
+            }
+            byte[] bytes;
+            int ttl;
+            if (value == null) {
+                bytes = CacheValueSerializer.NULL_FRAME;
+                ttl = addRandomExpireTime(nullTtl, Math.min(autoCache.randomExpireRange(), 30));
+            } else {
+                ttl = addRandomExpireTime(expireTime(cacheKey, autoCache), autoCache.randomExpireRange());
+                bytes = serializer.serialize(value, softExpireAt(autoCache, ttl));
+                metrics.valueSize(autoCache.scene(), bytes.length);
+            }
+            String redisKey = CacheSchemaRegistry.redisKey(cacheKey, version);
+            if (autoCache.asyncWrite()) {
+                // 入队不持有栅栏锁,写入线程写入前按序号检查,期间失效过的值不会写入
+                writeBehindQueue.submit(cacheKey, redisKey, null, bytes, ttl, ticket, tags, null);
+                int size = bytes.length;
+                fence.runIfCurrent(cacheKey, ticket, () -> localCacheManager.put(autoCache, cacheKey, value, size));
+            } else {
+                batch.set(redisKey, bytes, ttl);
+                cacheTagIndex.register(batch, cacheKey, tags);
+                written.put(cacheKey, bytes);
+            }
+        }
+        if (autoCache.asyncWrite() || written.isEmpty()) {
+            return;
+        }
+        batch.execute();
+        for (Map.Entry<String, byte[]> entry : written.entrySet()) {
+            String cacheKey = entry.getKey();
+            Object value = loaded == null ? null : loaded.get(missing.get(cacheKey));
+            boolean current = fence.runIfCurrent(cacheKey, ticket,
+                    () -> localCacheManager.put(autoCache, cacheKey, value, entry.getValue().length));
+            if (!current) {
+                storage.delete(CacheSchemaRegistry.redisKey(cacheKey, version));
+            }
+        }
+    }
+
+    /**
+     * 查找 keyExpression 结果对应的参数下标
+     */
+    private int indexOfArg(Object[] args, Object keyResult) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == keyResult) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 用布隆过滤器判断ID是否可能存在
+     */
+    private boolean mightExist(AutoCache autoCache, ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String expression = autoCache.bloomFilterKey().isEmpty() ? autoCache.keyExpression() : autoCache.bloomFilterKey();
+        Object id = keyResolver.resolve(expression, method, joinPoint.getArgs());
+        return idBloomFilterManager.mightContain(autoCache.bloomFilter(), id);
+    }
+
     /**
      * 生成缓存键
      */
     private String generateCacheKey(AutoCache autoCache, ProceedingJoinPoint joinPoint) {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Method method = signature.getMethod();
-        String key = parseSpelKey(autoCache.keyExpression(), method, joinPoint.getArgs());
+        String key = keyResolver.resolveKey(autoCache.keyExpression(), method, joinPoint.getArgs());
+        if (autoCache.warmUp()) {
+            accessRecorder.record(autoCache.scene(), key);
+        }
         return autoCache.scene() + "::" + key;
     }
 
     /**
      * 获取缓存值
+     *
+     * @param recordHit 是否计入命中统计,双重检查时不重复统计
      */
-    private Object getCachedValue(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache) {
-        // 1. L1 本地缓存查询
-        // isHotKey方法会上报一次key,用于统计
-        if(autoCache.enableL1()) {
-            if (JdHotKeyStore.isHotKey(cacheKey)) {
-                Object localCacheResult = JdHotKeyStore.get(cacheKey);
-                if (localCacheResult != null) {
-                    log.info("L1 Cache Hit: {}", cacheKey);
-                    return localCacheResult;
-                }
+    private Object getCachedValue(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache, boolean recordHit) {
+        String field = hashField(autoCache, joinPoint);
+        // 读 L2 之前领取序号,读取之后该key被失效时不回填本地缓存
+        long ticket = fence.ticket();
+        // 1. L1 本地缓存查询,所有key都会先查本地,HotKey只作为晋升信号
+        Object localCacheResult = getLocal(autoCache, cacheKey, field);
+        if (localCacheResult != null) {
+            if (recordHit) {
+                metrics.l1Hit(autoCache.scene());
             }
+            return localCacheResult;
         }
 
-                // 2. L2 分布式缓存查询
-        RBucket<String> bucket = redissonClient.getBucket(cacheKey);
-        String jsonValue = bucket.get();
-        if (jsonValue != null) {
-            log.info("L2 Cache Hit: {}", cacheKey);
+        // 2. L2 分布式缓存查询,Hash 模式只读取需要的字段
+        byte[] bytes = readRemote(cacheKey, autoCache, joinPoint);
+        if (bytes != null) {
+            // 先检查是否为空值缓存，空值没有 payload，不需要反序列化
+            if (CacheValueSerializer.isNullFrame(bytes)) {
+                if (recordHit) {
+                    metrics.nullHit(autoCache.scene());
+                }
+                return NULL_VALUE; // 返回空值标记，让上层逻辑处理
+            }
 
-            // 先检查是否为空值占位符，避免反序列化异常
-            if (isNullPlaceholder(jsonValue)) {
-                return jsonValue; // 返回占位符，让上层逻辑处理
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            CacheFrame frame = serializer.deserialize(bytes, serializer.resolveType(method));
+            if (frame == null) {
+                metrics.deserializeFailure(autoCache.scene());
+            }
+            if (frame != null && frame.getValue() != null) {
+                if (recordHit) {
+                    metrics.l2Hit(autoCache.scene());
+                }
+                // 软过期后仍然返回旧值,同时异步刷新
+                if (frame.isSoftExpired()) {
+                    submitRefresh(cacheKey, joinPoint, autoCache);
+                }
+                // L2缓存命中,回填本地缓存
+                fence.runIfCurrent(cacheKey, ticket,
+                        () -> putLocal(autoCache, cacheKey, field, frame.getValue(), frame.getSize()));
+                return frame.getValue();
             }
+        }
 
-            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-            Method method = signature.getMethod();
-            Type genericReturnType = method.getGenericReturnType();
+        return null;
+    }
 
-            Object redisResult = deserialize(jsonValue, genericReturnType);
-            if (redisResult != null) {
-                // L2缓存命中,尝试智能设置本地缓存
-                if(autoCache.enableL1()) {
-                    JdHotKeyStore.smartSet(cacheKey, redisResult);
+    /**
+     * 提交异步刷新任务
+     * 本节点通过 refreshingKeys 去重,集群内通过 Redis 锁保证同一个key只有一个节点在刷新
+     */
+    private void submitRefresh(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache) {
+        String slotKey = slotKey(cacheKey, autoCache, joinPoint);
+        if (!refreshingKeys.add(slotKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(cacheKey, joinPoint, autoCache);
+                } finally {
+                    refreshingKeys.remove(slotKey);
                 }
-                return redisResult;
+            });
+        } catch (RejectedExecutionException e) {
+            // 刷新线程池已满,本次放弃刷新,继续返回旧值,等待下一次读取再触发
+            refreshingKeys.remove(slotKey);
+            log.debug("Refresh task rejected for key: {}", cacheKey);
+        }
+    }
+
+    /**
+     * 刷新缓存,拿不到刷新锁说明其他节点正在刷新,直接放弃
+     */
+    private void refresh(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache) {
+        CacheStorageLock lock = storage.lock("refresh::" + slotKey(cacheKey, autoCache, joinPoint));
+        Runnable unlock = null;
+        try {
+            if (!lock.tryLock(0, 30000)) {
+                return;
+            }
+            unlock = unlockOnce(lock);
+            // 拿到锁后再确认一次,其他节点可能刚刷新完并释放了锁
+            if (!isSoftExpiredInRedis(cacheKey, joinPoint, autoCache)) {
+                unlock.run();
+                return;
+            }
+            long ticket = fence.ticket();
+            Object result = proceed(joinPoint, autoCache);
+            // 新值写入 Redis 后才释放刷新锁
+            cacheResult(cacheKey, result, autoCache, joinPoint, ticket, unlock);
+            log.debug("Refreshed cache for key: {}", cacheKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // 刷新失败不影响读请求,旧值会一直用到真正过期
+            log.warn("Refresh cache failed for key: {}, error: {}", cacheKey, e.getMessage());
+            if (unlock != null) {
+                unlock.run();
             }
         }
+    }
 
-        return null;
+    /**
+     * 检查 Redis 中的值是否仍然处于软过期状态,值已不存在时也需要刷新
+     */
+    private boolean isSoftExpiredInRedis(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache) {
+        byte[] bytes = readRemote(cacheKey, autoCache, joinPoint);
+        if (bytes == null || CacheValueSerializer.isNullFrame(bytes)) {
+            return true;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        CacheFrame frame = serializer.deserialize(bytes, serializer.resolveType(method));
+        return frame == null || frame.getSoftExpireAt() == 0 || frame.isSoftExpired();
     }
 
     /**
      * 带缓存击穿防护的执行方法
+     * 本节点内同一个key的并发未命中先经过 single-flight 合并,只有 leader 去抢分布式锁,
+     * 分布式锁只负责协调不同节点
+     * 合并的键带上失效代数,失效之后到达的请求不会拿到失效之前发起的加载结果
      */
     private Object executeWithBreakdownProtection(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache) throws Throwable {
-        String lockKey = "lock::" + cacheKey;
-        RLock lock = redissonClient.getLock(lockKey);
+        return singleFlight.execute(slotKey(cacheKey, autoCache, joinPoint) + "@" + fence.generation(cacheKey),
+                () -> loadWithDistributedLock(cacheKey, joinPoint, autoCache));
+    }
+
+    /**
+     * 加分布式锁后加载数据
+     */
+    private Object loadWithDistributedLock(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache) throws Throwable {
+        String lockKey = "lock::" + slotKey(cacheKey, autoCache, joinPoint);
+        CacheStorageLock lock = storage.lock(lockKey);
 
         try {
             // 尝试获取分布式锁,避免某个热点key过期,大量请求同时访问数据库
-            boolean acquired = lock.tryLock(3000, 10000, TimeUnit.MILLISECONDS);
+            // 锁等待期间其他节点的 leader 会写入缓存,拿到锁后的双重检查即可命中
+            long waitStart = System.nanoTime();
+            boolean acquired = lock.tryLock(3000, 10000);
+            metrics.lockWait(autoCache.scene(), System.nanoTime() - waitStart);
 
             if (acquired) {
+                // 异步写入时锁在值写入 Redis 之后才释放,其他节点拿到锁后的双重检查仍然可以命中
+                Runnable unlock = unlockOnce(lock);
                 try {
-                // 获取锁成功，再次检查缓存（双重检查,防止获取锁之前缓存被其他线程写入,不经判断就执行原方法,访问数据库）
-                Object doubleCheckResult = getCachedValue(cacheKey, joinPoint, autoCache);
-                if (doubleCheckResult != null) {
-                    if (isNullPlaceholder(doubleCheckResult)) {
-                        log.debug("Double check: Cache hit with null value for key: {}", cacheKey);
-                        return null;
-                    }
-                    log.debug("Double check: Cache hit for key: {}", cacheKey);
-                    return doubleCheckResult;
+                    return loadIfAbsent(cacheKey, joinPoint, autoCache, "Double check", unlock);
+                } catch (Throwable e) {
+                    unlock.run();
+                    throw e;
                 }
-
-                    // 缓存仍然不存在，执行原方法
-                    log.debug("Lock acquired for key: {}, executing original method", cacheKey);
-                    Object result = joinPoint.proceed();
-                    cacheResult(cacheKey, result, autoCache);
-                    return result;
-
-                } finally {
-                    lock.unlock();
-                }
-            } else {
-                // 获取锁失败，进行重试
-                return retryWithBackoff(cacheKey, joinPoint, autoCache, 3);
             }
+            // 等锁超时,说明持有锁的节点可能出了问题,最后检查一次缓存后直接执行原方法
+            log.warn("Acquire cache lock timeout for key: {}", cacheKey);
+            metrics.lockFallback(autoCache.scene());
+            return loadIfAbsent(cacheKey, joinPoint, autoCache, "Lock timeout check", null);
 
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.warn("Cache lock interrupted for key: {}", cacheKey);
+            metrics.lockFallback(autoCache.scene());
             // 降级执行原方法
-            Object result = joinPoint.proceed();
-            cacheResult(cacheKey, result, autoCache);
+            long ticket = fence.ticket();
+            Object result = proceed(joinPoint, autoCache);
+            cacheResult(cacheKey, result, autoCache, joinPoint, ticket, null);
             return result;
         }
     }
 
     /**
-     * 重试获取缓存，带退避策略
+     * 释放锁的回调,可以在写入线程中执行,多次执行只释放一次
      */
-    private Object retryWithBackoff(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache, int maxRetry) throws Throwable {
-        for (int i = 0; i < maxRetry; i++) {
-            try {
-                // 别的线程先拿到锁,执行完后会写入缓存,这里先等待一会拿到锁的线程执行,之后尽量从缓存获取
-                Thread.sleep(100 + i * 50); // 退避策略：100ms, 150ms, 200ms
-
-                            // 重新尝试从缓存获取
-            Object retryResult = getCachedValue(cacheKey, joinPoint, autoCache);
-            if (retryResult != null) {
-                if (isNullPlaceholder(retryResult)) {
-                    log.debug("Retry {}: Cache hit with null value for key: {}", i + 1, cacheKey);
-                    return null;
-                }
-                log.debug("Retry {}: Cache hit for key: {}", i + 1, cacheKey);
-                return retryResult;
+    private Runnable unlockOnce(CacheStorageLock lock) {
+        long threadId = Thread.currentThread().getId();
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                lock.unlock(threadId);
             }
+        };
+    }
 
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+    /**
+     * 再检查一次缓存（防止等待期间缓存已被其他节点写入,不经判断就执行原方法,访问数据库）,仍未命中则执行原方法并写缓存
+     *
+     * @param afterWrite 缓存命中或写入完成后执行,可以为 null
+     */
+    private Object loadIfAbsent(String cacheKey, ProceedingJoinPoint joinPoint, AutoCache autoCache, String stage,
+                                Runnable afterWrite) throws Throwable {
+        Object cachedValue = getCachedValue(cacheKey, joinPoint, autoCache, false);
+        if (cachedValue != null) {
+            if (afterWrite != null) {
+                afterWrite.run();
             }
+            if (cachedValue == NULL_VALUE) {
+                log.debug("{}: Cache hit with null value for key: {}", stage, cacheKey);
+                return null;
+            }
+            log.debug("{}: Cache hit for key: {}", stage, cacheKey);
+            return cachedValue;
         }
 
-        // 所有重试都失败，降级执行原方法
-        // 已经尝试从缓存获取了好几次,还是没拿到,说明拿到锁的线程可能出了问题,不再继续尝试从缓存获取,直接执行原方法
-        log.warn("All retries failed for key: {}, executing original method", cacheKey);
-        Object result = joinPoint.proceed();
-        cacheResult(cacheKey, result, autoCache);
+        // 缓存仍然不存在，执行原方法
+        log.debug("{}: Cache miss for key: {}, executing original method", stage, cacheKey);
+        long ticket = fence.ticket();
+        Object result = proceed(joinPoint, autoCache);
+        cacheResult(cacheKey, result, autoCache, joinPoint, ticket, afterWrite);
         return result;
     }
 
             /**
      * 缓存结果，包括null值的防穿透处理
+     *
+     * @param ticket 执行原方法之前领取的序号,期间该key被失效时放弃写入
+     * @param afterWrite 写入 Redis 后执行,开启 asyncWrite 时由写入线程执行,可以为 null
      */
-    private void cacheResult(String cacheKey, Object result, AutoCache autoCache) {
+    private void cacheResult(String cacheKey, Object result, AutoCache autoCache, ProceedingJoinPoint joinPoint,
+                             long ticket, Runnable afterWrite) {
+        Set<String> tags = resolveTags(autoCache, joinPoint, result);
+        if (tags == null) {
+            // 标签计算失败时不写缓存,否则该缓存无法按标签失效
+            if (afterWrite != null) {
+                afterWrite.run();
+            }
+            return;
+        }
+        byte[] bytesToCache;
+        int finalTtl;
         if (result == null) {
             // 缓存空值，设置较短的过期时间防止缓存穿透
-            String nullPlaceholder = createNullPlaceholder();
             int nullTtl = autoCache.nullTtl() > 0 ? autoCache.nullTtl() : 60; // 默认60秒
             // 空值缓存也可以添加随机时间，但范围较小
-            int finalNullTtl = addRandomExpireTime(nullTtl, Math.min(autoCache.randomExpireRange(), 30));
-
-            redissonClient.getBucket(cacheKey).set(nullPlaceholder, finalNullTtl, TimeUnit.SECONDS);
-            log.debug("Cached null value for key: {} with TTL: {}s (base: {}s)", cacheKey, finalNullTtl, nullTtl);
+            finalTtl = addRandomExpireTime(nullTtl, Math.min(autoCache.randomExpireRange(), 30));
+            bytesToCache = CacheValueSerializer.NULL_FRAME;
+            log.debug("Cached null value for key: {} with TTL: {}s (base: {}s)", cacheKey, finalTtl, nullTtl);
         } else {
-            // 缓存正常值（序列化后存储）
-            String jsonToCache = serialize(result);
-            int baseTtl = autoCache.expireTime();
+            int baseTtl = expireTime(cacheKey, autoCache);
             // 添加随机过期时间防止缓存雪崩
-            int finalTtl = addRandomExpireTime(baseTtl, autoCache.randomExpireRange());
-
-            redissonClient.getBucket(cacheKey).set(jsonToCache, finalTtl, TimeUnit.SECONDS);
+            finalTtl = addRandomExpireTime(baseTtl, autoCache.randomExpireRange());
+            // 缓存正常值（序列化后存储）,开启 refreshAhead 时带上软过期时间
+            bytesToCache = serializer.serialize(result, softExpireAt(autoCache, finalTtl));
+            metrics.valueSize(autoCache.scene(), bytesToCache.length);
             log.debug("Cached result for key: {} with TTL: {}s (base: {}s, random range: {}s)",
                      cacheKey, finalTtl, baseTtl, autoCache.randomExpireRange());
+        }
 
-            // 仅在启用L1缓存时设置本地缓存
-            if (autoCache.enableL1()) {
-                JdHotKeyStore.smartSet(cacheKey, result);
+        String field = hashField(autoCache, joinPoint);
+        String redisKey = redisKey(cacheKey, autoCache, joinPoint);
+        String redisField = redisField(field, autoCache, joinPoint);
+        byte[] bytes = bytesToCache;
+        int ttl = finalTtl;
+        boolean written;
+        if (autoCache.asyncWrite()) {
+            // 放入写入队列后立即返回,由后台线程合并写入;入队不持有栅栏锁,队列满时同步写入也不会阻塞失效
+            written = writeBehindQueue.submit(cacheKey, redisKey, redisField, bytes, ttl, ticket, tags, afterWrite);
+            if (written && result != null) {
+                fence.runIfCurrent(cacheKey, ticket, () -> putLocal(autoCache, cacheKey, field, result, bytes.length));
             }
+        } else {
+            // 写入 Redis 和本地缓存与失效记录互斥,执行原方法期间该key被失效时放弃写入
+            written = fence.runIfCurrent(cacheKey, ticket, () -> {
+                if (tags.isEmpty() && field == null) {
+                    storage.set(redisKey, bytes, ttl);
+                } else {
+                    // 缓存值和标签索引在同一个批处理中写入
+                    CacheStorageBatch batch = storage.batch();
+                    writeRemote(batch, redisKey, redisField, bytes, ttl);
+                    cacheTagIndex.register(batch, cacheKey, tags);
+                    batch.execute();
+                }
+                if (result != null) {
+                    // 回填本地缓存(是否启用由注解和全局配置决定)
+                    putLocal(autoCache, cacheKey, field, result, bytes.length);
+                }
+            });
+        }
+        if (!written) {
+            log.debug("Cache key: {} was invalidated while loading, skip caching", cacheKey);
+        }
+        // 开启 asyncWrite 时回调由写入队列执行
+        if (afterWrite != null && !autoCache.asyncWrite()) {
+            afterWrite.run();
         }
     }
 
     /**
-     * 添加随机过期时间，防止缓存雪崩
-     *
-     * @param baseTtl 基础过期时间（秒）
-     * @param randomRange 随机时间范围（秒），为0表示不添加随机时间
-     * @return 最终过期时间（秒）
+     * 计算 Hash 字段名,未开启 Hash 模式时返回 null
      */
-    private int addRandomExpireTime(int baseTtl, int randomRange) {
-        if (randomRange <= 0) {
-            return baseTtl;
+    private String hashField(AutoCache autoCache, ProceedingJoinPoint joinPoint) {
+        if (autoCache.hashField().isEmpty()) {
+            return null;
         }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return keyResolver.resolveKey(autoCache.hashField(), method, joinPoint.getArgs());
+    }
 
-        // 生成 [0, randomRange] 范围内的随机数
-        int randomSeconds = random.nextInt(randomRange + 1);
-        int finalTtl = baseTtl + randomSeconds;
+    /**
+     * 本节点内合并请求、分布式锁和刷新锁使用的键,Hash 模式下每个字段单独加载
+     */
+    private String slotKey(String cacheKey, AutoCache autoCache, ProceedingJoinPoint joinPoint) {
+        String field = hashField(autoCache, joinPoint);
+        return field == null ? cacheKey : cacheKey + "#" + field;
+    }
 
-        log.debug("Random expire time: base={}s, random={}s, final={}s", baseTtl, randomSeconds, finalTtl);
-        return finalTtl;
+    private Object getLocal(AutoCache autoCache, String cacheKey, String field) {
+        return field == null ? localCacheManager.get(autoCache, cacheKey)
+                : localCacheManager.getField(autoCache, cacheKey, field);
+    }
+
+    private void putLocal(AutoCache autoCache, String cacheKey, String field, Object value, int sizeInBytes) {
+        if (field == null) {
+            localCacheManager.put(autoCache, cacheKey, value, sizeInBytes);
+        } else {
+            localCacheManager.putField(autoCache, cacheKey, field, value, sizeInBytes);
+        }
     }
 
     /**
-     * 创建空值占位符
+     * Redis 键,带上返回值的结构版本;Hash 模式的版本加在字段名上,同一个实体的所有字段仍在一个 Hash 中
      */
-    private String createNullPlaceholder() {
-        return "NULL_PLACEHOLDER_" + System.currentTimeMillis();
+    private String redisKey(String cacheKey, AutoCache autoCache, ProceedingJoinPoint joinPoint) {
+        if (!autoCache.hashField().isEmpty()) {
+            return cacheKey;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return CacheSchemaRegistry.redisKey(cacheKey, schemaRegistry.version(autoCache, method));
     }
 
     /**
-     * 检查是否为空值占位符
+     * Redis 中的 Hash 字段名（field@version）,未开启 Hash 模式时返回 null
      */
-    private boolean isNullPlaceholder(Object value) {
-        if (value == null) {
-            return false;
-        }
-        if (value instanceof String) {
-            String strValue = (String) value;
-            return strValue.startsWith("NULL_PLACEHOLDER_");
+    private String redisField(String field, AutoCache autoCache, ProceedingJoinPoint joinPoint) {
+        if (field == null) {
+            return null;
         }
-        return false;
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return field + "@" + schemaRegistry.version(autoCache, method);
     }
 
-    // --- 辅助方法 ---
-
-    private String parseSpelKey(String keyExpression, Method method, Object[] args) {
-        SpelExpressionParser parser = new SpelExpressionParser();
-        Expression expression = parser.parseExpression(keyExpression);
-        EvaluationContext context = new StandardEvaluationContext();
-        StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
-        String[] parameterNames = discoverer.getParameterNames(method);
-        if (parameterNames != null) {
-            for (int i = 0; i < parameterNames.length; i++) {
-                context.setVariable(parameterNames[i], args[i]);
-            }
-        }
-        return String.valueOf(expression.getValue(context));
+    /**
+     * 读取 Redis 中的值,Hash 模式下只读取一个字段（HGET）
+     */
+    private byte[] readRemote(String cacheKey, AutoCache autoCache, ProceedingJoinPoint joinPoint) {
+        String redisKey = redisKey(cacheKey, autoCache, joinPoint);
+        String redisField = redisField(hashField(autoCache, joinPoint), autoCache, joinPoint);
+        return redisField == null ? storage.get(redisKey) : storage.getField(redisKey, redisField);
     }
 
-    // 序列化方法现在变得非常简单
-    private String serialize(Object object) {
-        try {
-            return objectMapper.writeValueAsString(object);
-        } catch (Exception e) {
-            throw new AutoCacheException("Serialization failed", e);
+    /**
+     * 在批处理中写入 Redis,Hash 模式下只写一个字段（HSET）并顺延整个 Hash 的过期时间
+     *
+     * @param redisKey 带版本的 Redis 键
+     * @param field 带版本的 Hash 字段名,非 Hash 模式为 null
+     */
+    static void writeRemote(CacheStorageBatch batch, String redisKey, String field, byte[] bytes, int ttlSeconds) {
+        if (field == null) {
+            batch.set(redisKey, bytes, ttlSeconds);
+        } else {
+            batch.setField(redisKey, field, bytes, ttlSeconds);
         }
     }
 
-    // 反序列化方法，优雅处理各种异常情况
-    private Object deserialize(String jsonValue, Type returnType) {
-        // 空值检查
-        if (jsonValue == null || jsonValue.trim().isEmpty()) {
-            log.debug("Json value is null or empty, returning null");
-            return null;
+    /**
+     * 基础过期时间,开启 adaptiveTtl 时按读写比调整
+     */
+    private int expireTime(String cacheKey, AutoCache autoCache) {
+        return autoCache.adaptiveTtl()
+                ? adaptiveTtlPolicy.expireTime(cacheKey, autoCache.expireTime()) : autoCache.expireTime();
+    }
+
+    /**
+     * 软过期时间戳,未开启 refreshAhead 时为 0
+     * 按实际写入的过期时间计算,自适应过期时间缩短或延长后,软过期到真正过期之间仍然保留注解配置的刷新窗口
+     */
+    private long softExpireAt(AutoCache autoCache, int ttl) {
+        if (autoCache.refreshAhead() <= 0) {
+            return 0;
         }
+        return System.currentTimeMillis()
+                + AdaptiveTtlPolicy.refreshAfter(ttl, autoCache.expireTime(), autoCache.refreshAhead()) * 1000L;
+    }
 
-        // 空值占位符检查（双重保险）
-        if (isNullPlaceholder(jsonValue)) {
-            log.debug("Detected null placeholder during deserialization: {}", jsonValue);
-            return jsonValue; // 返回占位符字符串，让上层逻辑处理
+    /**
+     * 执行原方法并记录回源耗时
+     */
+    private Object proceed(ProceedingJoinPoint joinPoint, AutoCache autoCache) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            metrics.load(autoCache.scene(), System.nanoTime() - start);
         }
+    }
 
+    /**
+     * 计算缓存标签,表达式结果可以是字符串或集合
+     *
+     * @return 标签集合,计算失败返回 null
+     */
+    private Set<String> resolveTags(AutoCache autoCache, ProceedingJoinPoint joinPoint, Object result) {
+        if (autoCache.tags().length == 0) {
+            return Collections.emptySet();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Set<String> tags = new LinkedHashSet<>();
         try {
-            TypeFactory typeFactory = objectMapper.getTypeFactory();
-            JavaType javaType = typeFactory.constructType(returnType);
-            return objectMapper.readValue(jsonValue, javaType);
+            for (String tagExpression : autoCache.tags()) {
+                Object value = keyResolver.resolve(tagExpression, method, joinPoint.getArgs(), result);
+                if (value instanceof Collection) {
+                    for (Object tag : (Collection<?>) value) {
+                        if (tag != null) {
+                            tags.add(tag.toString());
+                        }
+                    }
+                } else if (value != null) {
+                    tags.add(value.toString());
+                }
+            }
         } catch (Exception e) {
-            log.warn("Deserialization failed for json: {}, returning null. Error: {}",
-                     jsonValue.length() > 100 ? jsonValue.substring(0, 100) + "..." : jsonValue,
-                     e.getMessage());
+            log.warn("Resolve cache tags failed for method: {}, error: {}", method.getName(), e.getMessage());
             return null;
         }
+        return tags;
+    }
+
+    /**
+     * 添加随机过期时间，防止缓存雪崩
+     *
+     * @param baseTtl 基础过期时间（秒）
+     * @param randomRange 随机时间范围（秒），为0表示不添加随机时间
+     * @return 最终过期时间（秒）
+     */
+    private int addRandomExpireTime(int baseTtl, int randomRange) {
+        if (randomRange <= 0) {
+            return baseTtl;
+        }
+
+        // 生成 [0, randomRange] 范围内的随机数
+        int randomSeconds = random.nextInt(randomRange + 1);
+        int finalTtl = baseTtl + randomSeconds;
+
+        log.debug("Random expire time: base={}s, random={}s, final={}s", baseTtl, randomSeconds, finalTtl);
+        return finalTtl;
     }
 }
@@ -0,0 +1,205 @@
+package com.pickyboy.interviewcodex.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动缓存指标
+ * <p>
+ * 按场景统计 L1/L2 命中、未命中、空值命中、回源耗时、锁等待、降级次数、反序列化失败和缓存值大小，
+ * 通过 Micrometer 暴露给 Actuator，同时汇总为 /cache/stats 接口的数据。
+ * 每个场景的计量器只创建一次，记录时不再查找注册表。
+ *
+ * @author pickyboy
+ */
+public class AutoCacheMetrics {
+
+    private static final String PREFIX = "auto.cache";
+
+    private final MeterRegistry registry;
+
+    private final LocalCacheManager localCacheManager;
+
+    private final Map<String, SceneMeters> sceneMeters = new ConcurrentHashMap<>();
+
+    public AutoCacheMetrics(MeterRegistry registry, LocalCacheManager localCacheManager) {
+        this.registry = registry;
+        this.localCacheManager = localCacheManager;
+    }
+
+    public void l1Hit(String scene) {
+        meters(scene).l1Hits.increment();
+    }
+
+    public void l2Hit(String scene) {
+        meters(scene).l2Hits.increment();
+    }
+
+    public void nullHit(String scene) {
+        meters(scene).nullHits.increment();
+    }
+
+    public void miss(String scene) {
+        meters(scene).misses.increment();
+    }
+
+    public void miss(String scene, int count) {
+        meters(scene).misses.increment(count);
+    }
+
+    /**
+     * 被布隆过滤器拦截，既不算命中也不算未命中
+     */
+    public void bloomReject(String scene) {
+        meters(scene).bloomRejects.increment();
+    }
+
+    /**
+     * 回源加载耗时（纳秒）
+     */
+    public void load(String scene, long nanos) {
+        meters(scene).load.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 分布式锁等待耗时（纳秒）
+     */
+    public void lockWait(String scene, long nanos) {
+        meters(scene).lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 等锁超时或被中断，降级为直接回源
+     */
+    public void lockFallback(String scene) {
+        meters(scene).lockFallbacks.increment();
+    }
+
+    public void deserializeFailure(String scene) {
+        meters(scene).deserializeFailures.increment();
+    }
+
+    /**
+     * 写入 Redis 的值大小（字节）
+     */
+    public void valueSize(String scene, int sizeInBytes) {
+        meters(scene).valueSize.record(sizeInBytes);
+    }
+
+    /**
+     * 汇总所有场景的统计
+     *
+     * @return
+     */
+    public List<CacheSceneStats> stats() {
+        List<CacheSceneStats> statsList = new ArrayList<>();
+        sceneMeters.forEach((scene, meters) -> {
+            CacheSceneStats stats = new CacheSceneStats();
+            stats.setScene(scene);
+            stats.setL1Hits((long) meters.l1Hits.count());
+            stats.setL2Hits((long) meters.l2Hits.count());
+            stats.setNullHits((long) meters.nullHits.count());
+            stats.setMisses((long) meters.misses.count());
+            stats.setBloomRejects((long) meters.bloomRejects.count());
+            long total = stats.getL1Hits() + stats.getL2Hits() + stats.getNullHits() + stats.getMisses();
+            stats.setHitRate(total == 0 ? 0 : (double) (total - stats.getMisses()) / total);
+            stats.setLoadCount(meters.load.count());
+            stats.setLoadMeanMillis(meters.load.mean(TimeUnit.MILLISECONDS));
+            stats.setLoadMaxMillis(meters.load.max(TimeUnit.MILLISECONDS));
+            stats.setLockWaitMeanMillis(meters.lockWait.mean(TimeUnit.MILLISECONDS));
+            stats.setLockFallbacks((long) meters.lockFallbacks.count());
+            stats.setDeserializeFailures((long) meters.deserializeFailures.count());
+            stats.setValueSizeMean(meters.valueSize.mean());
+            stats.setValueSizeMax(meters.valueSize.max());
+            for (ValueAtPercentile percentile : meters.valueSize.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.95) {
+                    stats.setValueSizeP95(percentile.value());
+                }
+            }
+            stats.setLocalSize(localCacheManager.estimatedSize(scene));
+            stats.setLocalWeightKb(localCacheManager.weightedSize(scene));
+            statsList.add(stats);
+        });
+        return statsList;
+    }
+
+    private SceneMeters meters(String scene) {
+        SceneMeters meters = sceneMeters.get(scene);
+        if (meters == null) {
+            meters = sceneMeters.computeIfAbsent(scene, s -> new SceneMeters(registry, s));
+        }
+        return meters;
+    }
+
+    /**
+     * 单个场景的计量器
+     */
+    private static class SceneMeters {
+
+        private final Counter l1Hits;
+
+        private final Counter l2Hits;
+
+        private final Counter nullHits;
+
+        private final Counter misses;
+
+        private final Counter bloomRejects;
+
+        private final Timer load;
+
+        private final Timer lockWait;
+
+        private final Counter lockFallbacks;
+
+        private final Counter deserializeFailures;
+
+        private final DistributionSummary valueSize;
+
+        private SceneMeters(MeterRegistry registry, String scene) {
+            l1Hits = request(registry, scene, "l1_hit");
+            l2Hits = request(registry, scene, "l2_hit");
+            nullHits = request(registry, scene, "null_hit");
+            misses = request(registry, scene, "miss");
+            bloomRejects = request(registry, scene, "bloom_reject");
+            load = Timer.builder(PREFIX + ".load")
+                    .description("Time spent loading values from the original method")
+                    .tag("scene", scene)
+                    .register(registry);
+            lockWait = Timer.builder(PREFIX + ".lock.wait")
+                    .description("Time spent waiting for the breakdown protection lock")
+                    .tag("scene", scene)
+                    .register(registry);
+            lockFallbacks = Counter.builder(PREFIX + ".lock.fallbacks")
+                    .description("Loads executed without the lock after a timeout or interrupt")
+                    .tag("scene", scene)
+                    .register(registry);
+            deserializeFailures = Counter.builder(PREFIX + ".deserialize.failures")
+                    .tag("scene", scene)
+                    .register(registry);
+            valueSize = DistributionSummary.builder(PREFIX + ".value.size")
+                    .description("Serialized value size")
+                    .baseUnit("bytes")
+                    .tag("scene", scene)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private static Counter request(MeterRegistry registry, String scene, String result) {
+            return Counter.builder(PREFIX + ".requests")
+                    .tag("scene", scene)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存访问频率记录
+ * <p>
+ * 开启 warmUp 的缓存每次访问在本地累加，后台线程定期用一个批处理合并写入 Redis 有序集合
+ * （auto-cache:access:{scene}），不会给读请求增加 Redis 往返。
+ * 分数按固定间隔整体乘以衰减系数，近期热点排在前面，集群内每个间隔只有一个节点执行衰减。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheAccessRecorder {
+
+    private static final String ACCESS_KEY_PREFIX = "auto-cache:access:";
+
+    private static final String DECAY_MARK_KEY = "auto-cache:access-decay";
+
+    private static final byte[] DECAY_MARK = "1".getBytes(StandardCharsets.UTF_8);
+
+    private final CacheStorage storage;
+
+    private final AutoCacheProperties properties;
+
+    /**
+     * 场景 -> (业务键 -> 未写入 Redis 的访问次数)
+     */
+    private final Map<String, Map<String, LongAdder>> pendingCounts = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public CacheAccessRecorder(CacheStorage storage, AutoCacheProperties properties) {
+        this.storage = storage;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("cache-access-flush-%d")
+                .setDaemon(true)
+                .build());
+        long flushInterval = properties.getAccessFlushInterval();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.SECONDS);
+        long decayInterval = properties.getAccessDecayInterval();
+        scheduler.scheduleWithFixedDelay(this::decayQuietly, decayInterval, decayInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param scene 缓存场景
+     * @param key 业务键（不含场景前缀）
+     */
+    public void record(String scene, String key) {
+        pendingCounts.computeIfAbsent(scene, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * 查询访问频率最高的业务键
+     *
+     * @param scene 缓存场景
+     * @param topN 数量
+     * @return 按热度从高到低排列
+     */
+    public List<String> topKeys(String scene, int topN) {
+        if (topN <= 0) {
+            return Collections.emptyList();
+        }
+        return storage.topScored(ACCESS_KEY_PREFIX + scene, topN);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Flush cache access counts failed, error: {}", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        CacheStorageBatch batch = storage.batch();
+        int keyCount = 0;
+        for (Map.Entry<String, Map<String, LongAdder>> sceneEntry : pendingCounts.entrySet()) {
+            String name = ACCESS_KEY_PREFIX + sceneEntry.getKey();
+            Map<String, LongAdder> counts = sceneEntry.getValue();
+            for (String key : counts.keySet()) {
+                LongAdder adder = counts.remove(key);
+                if (adder != null && adder.sum() > 0) {
+                    batch.incrementScore(name, key, adder.sum());
+                    keyCount++;
+                }
+            }
+        }
+        if (keyCount > 0) {
+            batch.execute();
+            log.debug("Flushed cache access counts, {} keys", keyCount);
+        }
+    }
+
+    private void decayQuietly() {
+        try {
+            decay();
+        } catch (Exception e) {
+            log.warn("Decay cache access counts failed, error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 衰减所有场景的分数，并只保留前 accessMaxTracked 个键
+     */
+    private void decay() {
+        long interval = properties.getAccessDecayInterval();
+        // 标记的过期时间略短于间隔，保证下一轮能重新抢到
+        boolean owner = storage.setIfAbsent(DECAY_MARK_KEY, DECAY_MARK, (int) Math.max(1, interval - 1));
+        if (!owner) {
+            return;
+        }
+        for (String scene : pendingCounts.keySet()) {
+            storage.scaleScores(ACCESS_KEY_PREFIX + scene, properties.getAccessDecayFactor(),
+                    properties.getAccessMaxTracked());
+        }
+        log.info("Decayed cache access counts, factor: {}", properties.getAccessDecayFactor());
+    }
+}
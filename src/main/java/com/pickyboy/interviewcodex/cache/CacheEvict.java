@@ -24,9 +24,9 @@ public @interface CacheEvict {
 
     /**
      * SpEL 表达式，用于动态计算 Key。
-     * 通常是更新或删除对象的 ID。
+     * 通常是更新或删除对象的 ID，只按标签清除时可以不填。
      */
-    String keyExpression();
+    String keyExpression() default AutoCacheConstant.NONE_KEY;
 
     /**
      * 是否为批量操作，默认为 false
@@ -40,4 +40,10 @@ public @interface CacheEvict {
      * 如果不指定，则只清除基础key
      */
     String[] statuses() default {};
-}
\ No newline at end of file
+
+    /**
+     * 需要清除的标签，SpEL 表达式，结果可以是字符串或字符串集合
+     * 所有登记了这些标签的缓存键都会被删除，例如 'question:' + #question.id
+     */
+    String[] tags() default {};
+}
@@ -1,19 +1,18 @@
 package com.pickyboy.interviewcodex.cache;
 
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.core.StandardReflectionParameterNameDiscoverer;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 缓存失效切面
@@ -26,12 +25,16 @@ public class CacheEvictAspect {
 
     private final CacheUtils cacheUtils;
 
+    private final SpelKeyResolver keyResolver;
+
     /**
      * 构造函数注入
      * @param cacheUtils 缓存工具类
+     * @param keyResolver 键表达式解析
      */
-    public CacheEvictAspect(CacheUtils cacheUtils) {
+    public CacheEvictAspect(CacheUtils cacheUtils, SpelKeyResolver keyResolver) {
         this.cacheUtils = cacheUtils;
+        this.keyResolver = keyResolver;
     }
 
     /**
@@ -48,20 +51,47 @@ public class CacheEvictAspect {
         List<String> statuses = cacheEvict.statuses().length > 0 ?
             Arrays.asList(cacheEvict.statuses()) : null;
 
-        if (cacheEvict.isBatch()) {
-            // 批量缓存清除
-            evictBatchCache(cacheEvict, method, joinPoint.getArgs(), statuses);
-        } else {
-            // 单个缓存清除
-            evictSingleCache(cacheEvict, method, joinPoint.getArgs(), statuses);
+        if (!AutoCacheConstant.NONE_KEY.equals(cacheEvict.keyExpression())) {
+            if (cacheEvict.isBatch()) {
+                // 批量缓存清除
+                evictBatchCache(cacheEvict, method, joinPoint.getArgs(), statuses);
+            } else {
+                // 单个缓存清除
+                evictSingleCache(cacheEvict, method, joinPoint.getArgs(), statuses);
+            }
+        }
+
+        // 按标签清除依赖的缓存
+        if (cacheEvict.tags().length > 0) {
+            evictTags(cacheEvict, method, joinPoint.getArgs());
         }
     }
 
+    /**
+     * 按标签清除缓存，所有标签合并后一次清除
+     */
+    private void evictTags(CacheEvict cacheEvict, Method method, Object[] args) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (String tagExpression : cacheEvict.tags()) {
+            Object value = keyResolver.resolve(tagExpression, method, args);
+            if (value instanceof Collection) {
+                for (Object tag : (Collection<?>) value) {
+                    if (tag != null) {
+                        tags.add(tag.toString());
+                    }
+                }
+            } else if (value != null) {
+                tags.add(value.toString());
+            }
+        }
+        cacheUtils.evictByTags(tags);
+    }
+
     /**
      * 单个缓存清除
      */
     private void evictSingleCache(CacheEvict cacheEvict, Method method, Object[] args, List<String> statuses) {
-        Object keyResult = parseSpelKeyObject(cacheEvict.keyExpression(), method, args);
+        Object keyResult = keyResolver.resolve(cacheEvict.keyExpression(), method, args);
 
         if (statuses != null && !statuses.isEmpty()) {
             // 支持多状态的缓存清除
@@ -76,7 +106,7 @@ public class CacheEvictAspect {
      * 批量缓存清除
      */
     private void evictBatchCache(CacheEvict cacheEvict, Method method, Object[] args, List<String> statuses) {
-        Object keyResult = parseSpelKeyObject(cacheEvict.keyExpression(), method, args);
+        Object keyResult = keyResolver.resolve(cacheEvict.keyExpression(), method, args);
 
         if (!(keyResult instanceof List)) {
             log.warn("Batch cache evict expects a List but got: {}", keyResult.getClass());
@@ -94,18 +124,4 @@ public class CacheEvictAspect {
             cacheUtils.batchEvictCache(cacheEvict.scene(), idList);
         }
     }
-
-    private Object parseSpelKeyObject(String keyExpression, Method method, Object[] args) {
-        SpelExpressionParser parser = new SpelExpressionParser();
-        Expression expression = parser.parseExpression(keyExpression);
-        EvaluationContext context = new StandardEvaluationContext();
-        StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
-        String[] parameterNames = discoverer.getParameterNames(method);
-        if (parameterNames != null) {
-            for (int i = 0; i < parameterNames.length; i++) {
-                context.setVariable(parameterNames[i], args[i]);
-            }
-        }
-        return expression.getValue(context);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import com.pickyboy.interviewcodex.cache.storage.CacheMessageBus;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存失效总线
+ * <p>
+ * 通过 CacheMessageBus 向所有节点广播被删除的缓存键，收到消息的节点删除自己的本地缓存。
+ * 删除操作只负责把 key 放入待发送队列，由后台线程按固定间隔合并成批次发送，
+ * 批量删除上千个 key 时也只会产生少量消息。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final String TOPIC_NAME = "auto-cache:invalidation";
+
+    private final CacheMessageBus messageBus;
+
+    private final LocalCacheManager localCacheManager;
+
+    private final AutoCacheProperties properties;
+
+    private final AdaptiveTtlPolicy adaptiveTtlPolicy;
+
+    /**
+     * 当前节点标识
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentLinkedQueue<String> pendingKeys = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService flushExecutor;
+
+    public CacheInvalidationBus(CacheMessageBus messageBus, LocalCacheManager localCacheManager,
+                                AutoCacheProperties properties, AdaptiveTtlPolicy adaptiveTtlPolicy) {
+        this.messageBus = messageBus;
+        this.localCacheManager = localCacheManager;
+        this.properties = properties;
+        this.adaptiveTtlPolicy = adaptiveTtlPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        messageBus.subscribe(TOPIC_NAME, CacheInvalidationMessage.class, this::onMessage);
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("cache-invalidation-flush-%d")
+                .setDaemon(true)
+                .build());
+        long interval = properties.getInvalidationFlushInterval();
+        flushExecutor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        // 停机前把剩余的 key 发出去
+        flush();
+        messageBus.unsubscribe(TOPIC_NAME);
+    }
+
+    /**
+     * 登记需要广播失效的缓存键，本节点的本地缓存由调用方自行删除
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void publish(String cacheKey) {
+        if (cacheKey != null) {
+            pendingKeys.offer(cacheKey);
+        }
+    }
+
+    /**
+     * 把待发送的 key 按批次大小拆分后发送
+     */
+    private void flush() {
+        int batchSize = properties.getInvalidationBatchSize();
+        List<String> batch = new ArrayList<>();
+        String cacheKey;
+        while ((cacheKey = pendingKeys.poll()) != null) {
+            batch.add(cacheKey);
+            if (batch.size() >= batchSize) {
+                send(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<String> cacheKeys) {
+        CacheInvalidationMessage message = new CacheInvalidationMessage();
+        message.setNodeId(nodeId);
+        message.setCacheKeys(cacheKeys);
+        try {
+            messageBus.publish(TOPIC_NAME, message);
+            log.debug("Published cache invalidation, {} keys", cacheKeys.size());
+        } catch (Exception e) {
+            // 广播失败只会让其他节点的本地缓存等到过期，不影响 Redis 中的数据
+            log.warn("Publish cache invalidation failed, {} keys, error: {}", cacheKeys.size(), e.getMessage());
+        }
+    }
+
+    private void onMessage(CacheInvalidationMessage message) {
+        if (message == null || nodeId.equals(message.getNodeId()) || message.getCacheKeys() == null) {
+            return;
+        }
+        for (String cacheKey : message.getCacheKeys()) {
+            localCacheManager.invalidateLocalOnly(cacheKey);
+            // 其他节点的失效同样计入读写比
+            adaptiveTtlPolicy.recordInvalidation(cacheKey);
+        }
+        log.debug("Received cache invalidation from {}, {} keys", message.getNodeId(), message.getCacheKeys().size());
+    }
+}
@@ -0,0 +1,137 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.util.concurrent.Striped;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 缓存失效栅栏
+ * <p>
+ * 回源和回填本地缓存在读取数据之前领取一个序号（ticket），写入缓存时检查这期间该键是否被失效过，
+ * 失效过就放弃写入，避免“读到旧值 → 数据更新并删除缓存 → 旧值写回缓存”把旧值一直留到过期。
+ * 失效记录和检查并写入在同一把分段锁内完成，二者只可能有两种顺序：
+ * 写入在前，随后的删除会把它删掉；失效在前，写入被放弃。因此失效方法返回之后开始的读取不会再读到失效之前的值。
+ * <p>
+ * 只对本节点的写入生效，其他节点的失效通过失效广播到达后同样会记录；异步写入队列中已经开始执行的批次不受栅栏保护。
+ *
+ * @author pickyboy
+ */
+public class CacheInvalidationFence {
+
+    /**
+     * 失效记录超过该数量时清理，清理后序号不大于 floor 的读取全部视为过期
+     */
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 缓存键 -> 最近一次失效的序号
+     */
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+    private final Striped<Lock> locks = Striped.lock(256);
+
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    private volatile long floor;
+
+    /**
+     * 领取序号，在读取数据（L2 或数据库）之前调用
+     *
+     * @return
+     */
+    public long ticket() {
+        return sequence.get();
+    }
+
+    /**
+     * 缓存键当前的失效代数，只增不减，用于区分失效前后发起的合并请求
+     *
+     * @param cacheKey 完整缓存键
+     * @return
+     */
+    public long generation(String cacheKey) {
+        Long recorded = invalidatedAt.get(cacheKey);
+        return recorded == null ? floor : Math.max(recorded, floor);
+    }
+
+    /**
+     * 记录一次失效，并在同一把锁内执行删除动作
+     *
+     * @param cacheKey 完整缓存键
+     * @param action 删除动作，可以为 null
+     */
+    public void invalidate(String cacheKey, Runnable action) {
+        Lock lock = locks.get(cacheKey);
+        lock.lock();
+        try {
+            invalidatedAt.merge(cacheKey, sequence.incrementAndGet(), Math::max);
+            if (action != null) {
+                action.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (invalidatedAt.size() > MAX_ENTRIES) {
+            trim();
+        }
+    }
+
+    /**
+     * 领取序号之后缓存键没有被失效过才执行写入
+     *
+     * @param cacheKey 完整缓存键
+     * @param ticket 读取数据之前领取的序号
+     * @param action 写入动作
+     * @return 是否执行了写入
+     */
+    public boolean runIfCurrent(String cacheKey, long ticket, Runnable action) {
+        Lock lock = locks.get(cacheKey);
+        lock.lock();
+        try {
+            if (isStale(cacheKey, ticket)) {
+                return false;
+            }
+            action.run();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 领取序号之后缓存键是否被失效过
+     *
+     * @param cacheKey 完整缓存键
+     * @param ticket 读取数据之前领取的序号
+     * @return
+     */
+    public boolean isStale(String cacheKey, long ticket) {
+        if (ticket < floor) {
+            return true;
+        }
+        Long recorded = invalidatedAt.get(cacheKey);
+        return recorded != null && recorded > ticket;
+    }
+
+    /**
+     * 先抬高 floor 再删除不大于它的记录，任何时刻被删除的记录都已经被 floor 覆盖
+     */
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long newFloor = sequence.get();
+            floor = newFloor;
+            invalidatedAt.values().removeIf(recorded -> recorded <= newFloor);
+        } finally {
+            trimming.set(false);
+        }
+    }
+}
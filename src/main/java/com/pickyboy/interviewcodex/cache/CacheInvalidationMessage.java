@@ -0,0 +1,27 @@
+package com.pickyboy.interviewcodex.cache;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 本地缓存失效广播消息
+ *
+ * @author pickyboy
+ */
+@Data
+public class CacheInvalidationMessage implements Serializable {
+
+    /**
+     * 发送节点标识，接收方据此忽略自己发出的消息
+     */
+    private String nodeId;
+
+    /**
+     * 需要失效的完整缓存键
+     */
+    private List<String> cacheKeys;
+
+    private static final long serialVersionUID = 1L;
+}
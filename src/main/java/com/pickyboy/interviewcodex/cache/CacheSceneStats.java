@@ -0,0 +1,106 @@
+package com.pickyboy.interviewcodex.cache;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 缓存场景统计
+ *
+ * @author pickyboy
+ */
+@Data
+public class CacheSceneStats implements Serializable {
+
+    /**
+     * 缓存场景
+     */
+    private String scene;
+
+    /**
+     * 本地缓存命中次数
+     */
+    private long l1Hits;
+
+    /**
+     * Redis 命中次数
+     */
+    private long l2Hits;
+
+    /**
+     * 空值占位符命中次数
+     */
+    private long nullHits;
+
+    /**
+     * 未命中次数
+     */
+    private long misses;
+
+    /**
+     * 被布隆过滤器拦截的次数
+     */
+    private long bloomRejects;
+
+    /**
+     * 命中率（包含空值命中）
+     */
+    private double hitRate;
+
+    /**
+     * 回源次数
+     */
+    private long loadCount;
+
+    /**
+     * 平均回源耗时（毫秒）
+     */
+    private double loadMeanMillis;
+
+    /**
+     * 最大回源耗时（毫秒）
+     */
+    private double loadMaxMillis;
+
+    /**
+     * 平均锁等待耗时（毫秒）
+     */
+    private double lockWaitMeanMillis;
+
+    /**
+     * 等锁超时后直接回源的次数
+     */
+    private long lockFallbacks;
+
+    /**
+     * 反序列化失败次数
+     */
+    private long deserializeFailures;
+
+    /**
+     * 缓存值平均大小（字节）
+     */
+    private double valueSizeMean;
+
+    /**
+     * 缓存值大小 P95（字节）
+     */
+    private double valueSizeP95;
+
+    /**
+     * 缓存值最大大小（字节）
+     */
+    private double valueSizeMax;
+
+    /**
+     * 本地缓存条目数
+     */
+    private long localSize;
+
+    /**
+     * 本地缓存已用权重（KB）
+     */
+    private long localWeightKb;
+
+    private static final long serialVersionUID = 1L;
+}
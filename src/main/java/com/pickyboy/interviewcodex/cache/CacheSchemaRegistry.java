@@ -0,0 +1,300 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值结构版本
+ * <p>
+ * Redis 键在场景后面带上版本：scene:{version}::key（Hash 模式的版本加在字段名后面：field@{version}），
+ * 版本默认由缓存值类型（批量方法取返回的 Map 的值类型）的字段结构（字段名、字段类型、泛型参数、枚举常量）计算，也可以在注解上手动指定。
+ * VO 结构变化后新旧版本的节点各自读写自己的键，滚动发布期间不会出现反序列化失败和集中回源。
+ * <p>
+ * 每个节点把自己使用的版本登记到 auto-cache:schema:{scene}（分数为最近一次心跳时间），
+ * 删除缓存时删除所有仍在登记中的版本对应的键，保证旧版本节点也读不到旧数据。
+ * 超过 schemaVersionTtl 没有心跳的版本从登记中移除，它的键不再有人读取，按各自的过期时间自然淘汰。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheSchemaRegistry {
+
+    private static final String REGISTRY_KEY_PREFIX = "auto-cache:schema:";
+
+    private static final String SCENE_SEPARATOR = "::";
+
+    private final CacheStorage storage;
+
+    private final AutoCacheProperties properties;
+
+    private final Map<Method, String> methodVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 场景 -> 本节点使用的版本
+     */
+    private final Map<String, Set<String>> ownVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 场景 -> 集群中仍在使用的版本，短暂缓存，批量删除时不重复读取
+     */
+    private final Cache<String, Set<String>> liveVersions = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.SECONDS)
+            .build();
+
+    private ScheduledExecutorService scheduler;
+
+    public CacheSchemaRegistry(CacheStorage storage, AutoCacheProperties properties) {
+        this.storage = storage;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("cache-schema-heartbeat-%d")
+                .setDaemon(true)
+                .build());
+        long interval = properties.getSchemaHeartbeatInterval();
+        scheduler.scheduleWithFixedDelay(this::heartbeatQuietly, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取缓存方法的结构版本，第一次使用时登记到 Redis
+     *
+     * @param autoCache 缓存注解
+     * @param method 被缓存的方法
+     * @return 版本
+     */
+    public String version(AutoCache autoCache, Method method) {
+        String version = methodVersions.get(method);
+        if (version == null) {
+            // 登记完成后其他线程才能拿到版本，否则它们写入的键可能不在删除范围内
+            version = methodVersions.computeIfAbsent(method, m -> {
+                String computed = autoCache.schemaVersion().isEmpty()
+                        ? fingerprint(valueType(autoCache, m)) : autoCache.schemaVersion();
+                register(autoCache.scene(), computed);
+                return computed;
+            });
+        }
+        return version;
+    }
+
+    /**
+     * 每个缓存键保存的值的类型：批量方法是返回的 Map 的值类型，和同一场景的单条查询方法版本一致、共用同一批键
+     */
+    static Type valueType(AutoCache autoCache, Method method) {
+        Type returnType = method.getGenericReturnType();
+        if (autoCache.isBatch() && returnType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) returnType).getActualTypeArguments();
+            if (arguments.length == 2) {
+                return arguments[1];
+            }
+        }
+        return returnType;
+    }
+
+    /**
+     * 带版本的 Redis 键
+     *
+     * @param cacheKey 完整缓存键（scene::key）
+     * @param version 版本
+     * @return scene:{version}::key
+     */
+    public static String redisKey(String cacheKey, String version) {
+        int index = cacheKey.indexOf(SCENE_SEPARATOR);
+        if (index < 0) {
+            return cacheKey;
+        }
+        return cacheKey.substring(0, index) + ":" + version + cacheKey.substring(index);
+    }
+
+    /**
+     * 删除缓存时需要删除的所有 Redis 键：集群中仍在使用的每个版本各一个，另外包括不带版本的旧格式键
+     *
+     * @param cacheKey 完整缓存键（scene::key）
+     * @return 不带版本的旧格式键，以及每个仍在使用的版本对应的 scene:{version}::key
+     */
+    public List<String> redisKeys(String cacheKey) {
+        int index = cacheKey.indexOf(SCENE_SEPARATOR);
+        if (index < 0) {
+            return List.of(cacheKey);
+        }
+        Set<String> versions = liveVersions.get(cacheKey.substring(0, index), this::loadVersions);
+        List<String> keys = new ArrayList<>(versions.size() + 1);
+        keys.add(cacheKey);
+        for (String version : versions) {
+            keys.add(redisKey(cacheKey, version));
+        }
+        return keys;
+    }
+
+    private void register(String scene, String version) {
+        if (!ownVersions.computeIfAbsent(scene, s -> ConcurrentHashMap.newKeySet()).add(version)) {
+            return;
+        }
+        liveVersions.invalidate(scene);
+        try {
+            storage.addScored(REGISTRY_KEY_PREFIX + scene, System.currentTimeMillis(), version);
+            log.info("Registered cache schema version, scene: {}, version: {}", scene, version);
+        } catch (Exception e) {
+            // 下一次心跳会重新登记
+            log.warn("Register cache schema version failed, scene: {}, error: {}", scene, e.getMessage());
+        }
+    }
+
+    private Set<String> loadVersions(String scene) {
+        Set<String> versions = new LinkedHashSet<>(ownVersions.getOrDefault(scene, Set.of()));
+        try {
+            versions.addAll(storage.rangeByScore(REGISTRY_KEY_PREFIX + scene,
+                    System.currentTimeMillis() - properties.getSchemaVersionTtl() * 1000L));
+        } catch (Exception e) {
+            // 读取失败时只删除本节点使用的版本
+            log.warn("Load cache schema versions failed, scene: {}, error: {}", scene, e.getMessage());
+        }
+        return versions;
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            heartbeat();
+        } catch (Exception e) {
+            log.warn("Cache schema heartbeat failed, error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 刷新本节点版本的心跳，并移除已经没有节点使用的版本
+     */
+    private void heartbeat() {
+        if (ownVersions.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long ttlMillis = properties.getSchemaVersionTtl() * 1000L;
+        CacheStorageBatch batch = storage.batch();
+        ownVersions.forEach((scene, versions) -> {
+            String registryKey = REGISTRY_KEY_PREFIX + scene;
+            for (String version : versions) {
+                batch.addScored(registryKey, now, version);
+            }
+            batch.removeScoredBelow(registryKey, now - ttlMillis);
+            // 场景下线后登记本身也会过期
+            batch.expire(registryKey, ttlMillis * 2);
+        });
+        batch.execute();
+    }
+
+    /**
+     * 根据类型结构计算版本，字段按名称排序，只展开非 JDK 的类
+     *
+     * @param type 方法返回值类型
+     * @return 8 位十六进制字符串
+     */
+    static String fingerprint(Type type) {
+        StringBuilder signature = new StringBuilder();
+        describe(type, signature, new HashSet<>());
+        return Hashing.murmur3_32_fixed().hashString(signature, StandardCharsets.UTF_8).toString();
+    }
+
+    private static void describe(Type type, StringBuilder signature, Set<Class<?>> visited) {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            describe(parameterizedType.getRawType(), signature, visited);
+            signature.append('<');
+            for (Type argument : parameterizedType.getActualTypeArguments()) {
+                describe(argument, signature, visited);
+                signature.append(',');
+            }
+            signature.append('>');
+            return;
+        }
+        if (type instanceof GenericArrayType) {
+            describe(((GenericArrayType) type).getGenericComponentType(), signature, visited);
+            signature.append("[]");
+            return;
+        }
+        if (type instanceof TypeVariable) {
+            signature.append(((TypeVariable<?>) type).getName());
+            return;
+        }
+        if (type instanceof WildcardType) {
+            signature.append('?');
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                describe(bound, signature, visited);
+            }
+            return;
+        }
+        if (!(type instanceof Class)) {
+            signature.append(type.getTypeName());
+            return;
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz.isArray()) {
+            describe(clazz.getComponentType(), signature, visited);
+            signature.append("[]");
+            return;
+        }
+        signature.append(clazz.getName());
+        if (clazz.isPrimitive() || clazz.getName().startsWith("java.") || clazz.getName().startsWith("javax.")
+                || !visited.add(clazz)) {
+            return;
+        }
+        if (clazz.isEnum()) {
+            signature.append(Arrays.toString(clazz.getEnumConstants()));
+            return;
+        }
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                    fields.add(field);
+                }
+            }
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        signature.append('{');
+        for (Field field : fields) {
+            signature.append(field.getName()).append(':');
+            describe(field.getGenericType(), signature, visited);
+            signature.append(';');
+        }
+        signature.append('}');
+    }
+}
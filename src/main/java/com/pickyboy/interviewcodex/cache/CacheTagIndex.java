@@ -0,0 +1,88 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存标签索引
+ * <p>
+ * 每个标签（如 question:1、bank:2）对应一个 Redis Set，保存依赖它的缓存键。
+ * 写缓存时和缓存值放在同一个批处理里登记，按标签失效时读出所有成员并在一个批处理里删除。
+ * 已过期的缓存键会留在 Set 中，直到被失效或 Set 整体过期，删除不存在的键没有副作用。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheTagIndex {
+
+    private static final String TAG_KEY_PREFIX = "auto-cache:tag:";
+
+    private final CacheStorage storage;
+
+    private final AutoCacheProperties properties;
+
+    public CacheTagIndex(CacheStorage storage, AutoCacheProperties properties) {
+        this.storage = storage;
+        this.properties = properties;
+    }
+
+    /**
+     * 在批处理中登记缓存键的标签
+     *
+     * @param batch 写缓存使用的批处理
+     * @param cacheKey 完整缓存键
+     * @param tags 标签
+     */
+    public void register(CacheStorageBatch batch, String cacheKey, Collection<String> tags) {
+        for (String tag : tags) {
+            // 每次写入都顺延，Set 的过期时间不短于其中任何一个缓存键
+            batch.addMembers(tagKey(tag), List.of(cacheKey), properties.getTagExpireTime());
+        }
+    }
+
+    /**
+     * 查询标签下的所有缓存键，所有标签在一次往返内查询
+     *
+     * @param tags 标签
+     * @return 标签 -> 缓存键
+     */
+    public Map<String, Set<String>> members(Collection<String> tags) {
+        List<String> tagKeys = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            tagKeys.add(tagKey(tag));
+        }
+        Map<String, Set<String>> tagMembers = storage.members(tagKeys);
+        Map<String, Set<String>> members = new LinkedHashMap<>();
+        for (String tag : tags) {
+            members.put(tag, tagMembers.getOrDefault(tagKey(tag), Set.of()));
+        }
+        return members;
+    }
+
+    /**
+     * 在批处理中移除已经删除的缓存键
+     * 只移除读到的成员，期间新登记的缓存键保留在索引中
+     *
+     * @param batch 删除缓存使用的批处理
+     * @param tag 标签
+     * @param cacheKeys 已删除的缓存键
+     */
+    public void unregister(CacheStorageBatch batch, String tag, Collection<String> cacheKeys) {
+        if (!cacheKeys.isEmpty()) {
+            batch.removeMembers(tagKey(tag), cacheKeys);
+        }
+    }
+
+    private String tagKey(String tag) {
+        return TAG_KEY_PREFIX + tag;
+    }
+}
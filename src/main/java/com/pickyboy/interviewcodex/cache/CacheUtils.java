@@ -1,27 +1,98 @@
 package com.pickyboy.interviewcodex.cache;
 
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RBatch;
-import org.redisson.api.RedissonClient;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 缓存清理工具类
+ * <p>
+ * 缓存键在 Redis 中按结构版本区分，删除时同时删除集群中仍在使用的所有版本（见 CacheSchemaRegistry）
+ * <p>
+ * 删除顺序：先在失效栅栏中记录失效并取消尚未写入的值，再删除 L2，最后删除本地缓存并广播，
+ * 删除 L2 之前已经开始的回源和回填都会被栅栏放弃，方法返回后不会再读到旧值
  *
  * @author pickyboy
  */
 @Slf4j
 public class CacheUtils {
 
-    private final RedissonClient redissonClient;
+    private final CacheStorage storage;
+
+    private final LocalCacheManager localCacheManager;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final CacheTagIndex cacheTagIndex;
+
+    private final CacheWriteBehindQueue writeBehindQueue;
+
+    private final AdaptiveTtlPolicy adaptiveTtlPolicy;
+
+    private final CacheSchemaRegistry schemaRegistry;
+
+    private final CacheInvalidationFence fence;
 
     /**
      * 构造函数注入
-     * @param redissonClient Redis客户端
+     * @param storage 缓存存储（L2）
+     * @param localCacheManager 本地缓存管理器
+     * @param cacheInvalidationBus 本地缓存失效总线
+     * @param cacheTagIndex 缓存标签索引
+     * @param writeBehindQueue 缓存异步写入队列
+     * @param adaptiveTtlPolicy 自适应过期时间
+     * @param schemaRegistry 缓存值结构版本
+     * @param fence 缓存失效栅栏
      */
-    public CacheUtils(RedissonClient redissonClient) {
-        this.redissonClient = redissonClient;
+    public CacheUtils(CacheStorage storage, LocalCacheManager localCacheManager,
+                      CacheInvalidationBus cacheInvalidationBus, CacheTagIndex cacheTagIndex,
+                      CacheWriteBehindQueue writeBehindQueue, AdaptiveTtlPolicy adaptiveTtlPolicy,
+                      CacheSchemaRegistry schemaRegistry, CacheInvalidationFence fence) {
+        this.storage = storage;
+        this.localCacheManager = localCacheManager;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.cacheTagIndex = cacheTagIndex;
+        this.writeBehindQueue = writeBehindQueue;
+        this.adaptiveTtlPolicy = adaptiveTtlPolicy;
+        this.schemaRegistry = schemaRegistry;
+        this.fence = fence;
+    }
+
+    /**
+     * 按标签清除缓存，删除所有登记了这些标签的缓存键
+     * 先一次往返读出所有标签的成员，再用一个批处理删除缓存键并从索引中移除
+     * @param tags 标签列表，如 question:1、bank:2
+     */
+    public void evictByTags(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+
+        Map<String, Set<String>> members = cacheTagIndex.members(tags);
+        CacheStorageBatch batch = storage.batch();
+        List<String> cacheKeys = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : members.entrySet()) {
+            for (String cacheKey : entry.getValue()) {
+                deleteRemote(batch, cacheKey);
+                cacheKeys.add(cacheKey);
+            }
+            cacheTagIndex.unregister(batch, entry.getKey(), entry.getValue());
+        }
+        if (cacheKeys.isEmpty()) {
+            return;
+        }
+        batch.execute();
+        for (String cacheKey : cacheKeys) {
+            evictLocal(sceneOf(cacheKey), cacheKey);
+        }
+
+        log.info("Cache Evicted by tags: {} keys for tags: {}", cacheKeys.size(), tags);
     }
 
     /**
@@ -34,14 +105,17 @@ public class CacheUtils {
             return;
         }
 
-        RBatch batch = redissonClient.createBatch();
+        CacheStorageBatch batch = storage.batch();
+        List<String> cacheKeys = new ArrayList<>(ids.size());
         for (Object id : ids) {
             if (id != null) {
                 String cacheKey = scene + "::" + id.toString();
-                batch.getBucket(cacheKey).deleteAsync();
+                deleteRemote(batch, cacheKey);
+                cacheKeys.add(cacheKey);
             }
         }
         batch.execute();
+        evictLocal(scene, cacheKeys);
 
         log.info("Batch Cache Evicted: {} keys for scene: {}", ids.size(), scene);
     }
@@ -57,29 +131,30 @@ public class CacheUtils {
             return;
         }
 
-        RBatch batch = redissonClient.createBatch();
-        int keyCount = 0;
+        CacheStorageBatch batch = storage.batch();
+        List<String> cacheKeys = new ArrayList<>();
 
         for (Object id : ids) {
             if (id != null) {
                 if (statuses == null || statuses.isEmpty()) {
                     // 只清除基础key
                     String cacheKey = scene + "::" + id.toString();
-                    batch.getBucket(cacheKey).deleteAsync();
-                    keyCount++;
+                    deleteRemote(batch, cacheKey);
+                    cacheKeys.add(cacheKey);
                 } else {
                     // 清除所有状态的key
                     for (String status : statuses) {
                         String cacheKey = scene + "::" + id.toString() + "_" + status;
-                        batch.getBucket(cacheKey).deleteAsync();
-                        keyCount++;
+                        deleteRemote(batch, cacheKey);
+                        cacheKeys.add(cacheKey);
                     }
                 }
             }
         }
 
         batch.execute();
-        log.info("Batch Cache Evicted: {} keys for scene: {}", keyCount, scene);
+        evictLocal(scene, cacheKeys);
+        log.info("Batch Cache Evicted: {} keys for scene: {}", cacheKeys.size(), scene);
     }
 
     /**
@@ -90,7 +165,9 @@ public class CacheUtils {
     public void evictCache(String scene, Object id) {
         if (id != null) {
             String cacheKey = scene + "::" + id.toString();
-            boolean deleted = redissonClient.getBucket(cacheKey).delete();
+            fence.invalidate(cacheKey, () -> writeBehindQueue.cancel(cacheKey));
+            boolean deleted = storage.delete(redisKeys(cacheKey)) > 0;
+            evictLocal(scene, cacheKey);
 
             if (deleted) {
                 log.info("Cache Evicted: {}", cacheKey);
@@ -116,13 +193,54 @@ public class CacheUtils {
             evictCache(scene, id);
         } else {
             // 清除所有状态的key
-            RBatch batch = redissonClient.createBatch();
+            CacheStorageBatch batch = storage.batch();
+            List<String> cacheKeys = new ArrayList<>(statuses.size());
             for (String status : statuses) {
                 String cacheKey = scene + "::" + id.toString() + "_" + status;
-                batch.getBucket(cacheKey).deleteAsync();
+                deleteRemote(batch, cacheKey);
+                cacheKeys.add(cacheKey);
             }
             batch.execute();
+            evictLocal(scene, cacheKeys);
             log.info("Cache Evicted: {} keys for id {} in scene: {}", statuses.size(), id, scene);
         }
     }
+
+    /**
+     * 记录失效并取消尚未写入的值，然后在批处理中删除缓存键在 Redis 中的所有版本
+     */
+    private void deleteRemote(CacheStorageBatch batch, String cacheKey) {
+        fence.invalidate(cacheKey, () -> writeBehindQueue.cancel(cacheKey));
+        batch.delete(redisKeys(cacheKey));
+    }
+
+    /**
+     * 缓存键在 Redis 中的所有版本
+     */
+    private String[] redisKeys(String cacheKey) {
+        return schemaRegistry.redisKeys(cacheKey).toArray(new String[0]);
+    }
+
+    private String sceneOf(String cacheKey) {
+        int index = cacheKey.indexOf("::");
+        return index < 0 ? cacheKey : cacheKey.substring(0, index);
+    }
+
+    private void evictLocal(String scene, List<String> cacheKeys) {
+        for (String cacheKey : cacheKeys) {
+            evictLocal(scene, cacheKey);
+        }
+    }
+
+    /**
+     * 删除 Redis 之后删除本节点的本地缓存，并通知其他节点删除
+     * 删除 Redis 之前读到旧值的回填由失效栅栏放弃，这里再删除一次期间已经回填的本地缓存
+     * @param scene 缓存场景
+     * @param cacheKey 完整缓存键
+     */
+    private void evictLocal(String scene, String cacheKey) {
+        adaptiveTtlPolicy.recordInvalidation(cacheKey);
+        localCacheManager.invalidate(scene, cacheKey);
+        cacheInvalidationBus.publish(cacheKey);
+    }
 }
\ No newline at end of file
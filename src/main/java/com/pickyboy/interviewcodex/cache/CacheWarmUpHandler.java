@@ -0,0 +1,28 @@
+package com.pickyboy.interviewcodex.cache;
+
+import java.util.List;
+
+/**
+ * 缓存预热处理器
+ * <p>
+ * 每个开启 warmUp 的场景提供一个实现，通过 Spring 代理调用带 @AutoCache 的方法，
+ * 由切面负责写入 Redis 和本地缓存。
+ *
+ * @author pickyboy
+ */
+public interface CacheWarmUpHandler {
+
+    /**
+     * 处理的缓存场景
+     *
+     * @return
+     */
+    String scene();
+
+    /**
+     * 预热一批缓存
+     *
+     * @param keys 业务键（不含场景前缀），按热度从高到低排列
+     */
+    void warmUp(List<String> keys);
+}
@@ -0,0 +1,143 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存预热
+ * <p>
+ * 启动时（或管理员触发时）按访问热度取出各场景前 N 个键，拆分成批次并行预热，
+ * 所有批次共用一个限流器，避免压垮数据库。
+ * 启动预热期间就绪状态保持为 REFUSING_TRAFFIC，完成或超时后才开始接收流量。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheWarmUpService {
+
+    private final CacheAccessRecorder accessRecorder;
+
+    private final ObjectProvider<CacheWarmUpHandler> handlers;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AutoCacheProperties properties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean startupTriggered = new AtomicBoolean();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CacheWarmUpService(CacheAccessRecorder accessRecorder, ObjectProvider<CacheWarmUpHandler> handlers,
+                              ThreadPoolExecutor executor, AutoCacheProperties properties,
+                              ApplicationEventPublisher eventPublisher) {
+        this.accessRecorder = accessRecorder;
+        this.handlers = handlers;
+        this.executor = executor;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 应用第一次进入 ACCEPTING_TRAFFIC 时先切回 REFUSING_TRAFFIC，预热完成后再恢复
+     */
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || !properties.isWarmUpEnabled()
+                || !startupTriggered.compareAndSet(false, true)) {
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        startWarmUpThread(() -> {
+            try {
+                warmUp();
+            } finally {
+                AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            }
+        });
+    }
+
+    /**
+     * 异步触发一次预热
+     *
+     * @return 已有预热在执行时返回 false
+     */
+    public boolean warmUpAsync() {
+        if (running.get()) {
+            return false;
+        }
+        startWarmUpThread(this::warmUp);
+        return true;
+    }
+
+    /**
+     * 在单独的线程上编排预热，编排线程会阻塞等待所有批次完成，
+     * 不能占用公共 ForkJoinPool 或执行批次的线程池
+     */
+    private void startWarmUpThread(Runnable task) {
+        Thread thread = new Thread(task, "cache-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 执行预热，同一时间只执行一次
+     *
+     * @return 预热成功的键数量
+     */
+    public int warmUp() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Cache warm up is already running");
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        AtomicInteger warmed = new AtomicInteger();
+        try {
+            RateLimiter rateLimiter = RateLimiter.create(properties.getWarmUpRate());
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (CacheWarmUpHandler handler : handlers) {
+                List<String> keys = accessRecorder.topKeys(handler.scene(), properties.getWarmUpTopN());
+                for (List<String> batch : Lists.partition(keys, properties.getWarmUpBatchSize())) {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        rateLimiter.acquire(batch.size());
+                        try {
+                            handler.warmUp(batch);
+                            warmed.addAndGet(batch.size());
+                        } catch (Exception e) {
+                            log.warn("Cache warm up failed for scene: {}, error: {}", handler.scene(), e.getMessage());
+                        }
+                    }, executor));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(properties.getWarmUpTimeout(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Cache warm up timeout after {}s, warmed {} keys", properties.getWarmUpTimeout(), warmed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Cache warm up failed, error: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        log.info("Cache warm up finished, {} keys in {}ms", warmed.get(), System.currentTimeMillis() - start);
+        return warmed.get();
+    }
+}
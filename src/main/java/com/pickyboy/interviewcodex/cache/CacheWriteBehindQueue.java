@@ -0,0 +1,283 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 缓存异步写入队列（write-behind）
+ * <p>
+ * 开启 asyncWrite 的缓存回源后只把序列化好的值放入有界队列，由后台线程按固定间隔取出，
+ * 每 writeBehindBatchSize 条合并成一个批处理写入 Redis，请求线程不再等待 Redis 写入。
+ * 队列满时按 writeBehindRejectPolicy 处理：caller_runs 由调用线程同步写入，drop_oldest 丢弃最早的写入。
+ * 每个写入可以带一个写入完成后的回调（例如释放击穿防护锁），写入成功、失败或被丢弃后都会执行。
+ * <p>
+ * 待写入的值按缓存键登记，同一个键只保留最新的一次写入，失效时按键取消。
+ * 入队不持有失效栅栏的锁，写入前再用读取数据之前领取的序号检查，期间被失效过的值不会写入；
+ * 已经开始执行的批次不受栅栏保护。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheWriteBehindQueue {
+
+    private static final String POLICY_DROP_OLDEST = "drop_oldest";
+
+    private static final String PREFIX = "auto.cache.write";
+
+    private final CacheStorage storage;
+
+    private final CacheTagIndex cacheTagIndex;
+
+    private final AutoCacheProperties properties;
+
+    private final CacheInvalidationFence fence;
+
+    private final BlockingQueue<WriteTask> queue;
+
+    /**
+     * 缓存键 -> 尚未写入的最新一次写入，队列中不在这里的任务已被取消或被更新的写入取代
+     */
+    private final Map<String, WriteTask> pending = new ConcurrentHashMap<>();
+
+    private final Counter flushed;
+
+    private final Counter dropped;
+
+    private final Counter callerRuns;
+
+    private final Timer flushTimer;
+
+    private ScheduledExecutorService flushExecutor;
+
+    public CacheWriteBehindQueue(CacheStorage storage, CacheTagIndex cacheTagIndex, CacheInvalidationFence fence,
+                                 AutoCacheProperties properties, MeterRegistry registry) {
+        this.storage = storage;
+        this.cacheTagIndex = cacheTagIndex;
+        this.fence = fence;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getWriteBehindQueueCapacity());
+        Gauge.builder(PREFIX + ".queue.depth", queue, BlockingQueue::size)
+                .description("Cache writes waiting to be flushed")
+                .register(registry);
+        this.flushed = Counter.builder(PREFIX + ".flushed").register(registry);
+        this.dropped = Counter.builder(PREFIX + ".dropped")
+                .description("Cache writes dropped because the queue was full")
+                .register(registry);
+        this.callerRuns = Counter.builder(PREFIX + ".caller.runs")
+                .description("Cache writes executed on the caller thread because the queue was full")
+                .register(registry);
+        this.flushTimer = Timer.builder(PREFIX + ".flush")
+                .description("Time spent executing one write batch")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("cache-write-behind-%d")
+                .setDaemon(true)
+                .build());
+        long interval = properties.getWriteBehindFlushInterval();
+        flushExecutor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                flushExecutor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // 停机前把剩余的写入刷到 Redis
+        flush();
+    }
+
+    /**
+     * 提交一次缓存写入，不需要持有失效栅栏的锁
+     *
+     * @param cacheKey 完整缓存键，用于取消写入和登记标签
+     * @param redisKey 带结构版本的 Redis 键
+     * @param field 带结构版本的 Hash 字段，非 Hash 模式为 null
+     * @param bytes 序列化后的值
+     * @param ttlSeconds 过期时间（秒）
+     * @param ticket 读取数据之前领取的序号，之后该键被失效过则放弃写入
+     * @param tags 标签，和值在同一个批处理中登记
+     * @param afterWrite 写入完成后的回调，可以为 null
+     * @return 是否接受了写入，已经失效时返回 false 并执行回调
+     */
+    public boolean submit(String cacheKey, String redisKey, String field, byte[] bytes, int ttlSeconds, long ticket,
+                          Set<String> tags, Runnable afterWrite) {
+        WriteTask task = new WriteTask(cacheKey, redisKey, field, bytes, ttlSeconds, ticket, tags, afterWrite);
+        if (fence.isStale(cacheKey, ticket)) {
+            task.complete();
+            return false;
+        }
+        // 先登记再入队，写入线程取出任务时一定能看到登记
+        WriteTask replaced = pending.put(cacheKey, task);
+        if (replaced != null) {
+            replaced.complete();
+        }
+        if (queue.offer(task)) {
+            return true;
+        }
+        if (POLICY_DROP_OLDEST.equalsIgnoreCase(properties.getWriteBehindRejectPolicy())) {
+            WriteTask oldest = queue.poll();
+            if (oldest != null) {
+                if (pending.remove(oldest.cacheKey, oldest)) {
+                    dropped.increment();
+                }
+                oldest.complete();
+            }
+            if (queue.offer(task)) {
+                return true;
+            }
+        }
+        // 队列已满,由调用线程同步写入,请求线程退化为同步写
+        if (pending.remove(cacheKey, task)) {
+            callerRuns.increment();
+            execute(Collections.singletonList(task));
+        } else {
+            task.complete();
+        }
+        return true;
+    }
+
+    /**
+     * 取消尚未写入的缓存键，缓存失效时调用，避免旧值在删除之后才被写入
+     * 已经在执行中的批次无法取消
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void cancel(String cacheKey) {
+        WriteTask task = pending.remove(cacheKey);
+        if (task != null) {
+            task.complete();
+        }
+    }
+
+    private void flush() {
+        int batchSize = properties.getWriteBehindBatchSize();
+        List<WriteTask> tasks = new ArrayList<>(Math.min(batchSize, queue.size()));
+        while (queue.drainTo(tasks, batchSize) > 0) {
+            // 已取消或被取代的任务只留在队列中，这里跳过
+            tasks.removeIf(task -> {
+                if (pending.remove(task.cacheKey, task)) {
+                    return false;
+                }
+                task.complete();
+                return true;
+            });
+            if (!tasks.isEmpty()) {
+                execute(tasks);
+            }
+            tasks.clear();
+        }
+    }
+
+    private void execute(List<WriteTask> tasks) {
+        long start = System.nanoTime();
+        try {
+            CacheStorageBatch batch = storage.batch();
+            int current = 0;
+            for (WriteTask task : tasks) {
+                // 入队之后被失效过的值不再写入
+                if (fence.isStale(task.cacheKey, task.ticket)) {
+                    continue;
+                }
+                current++;
+                AutoCacheAspect.writeRemote(batch, task.redisKey, task.field, task.bytes, task.ttlSeconds);
+                if (!task.tags.isEmpty()) {
+                    cacheTagIndex.register(batch, task.cacheKey, task.tags);
+                }
+            }
+            if (current == 0) {
+                return;
+            }
+            batch.execute();
+            flushed.increment(current);
+        } catch (Exception e) {
+            // 写入失败只会让下一次读取回源
+            log.warn("Flush cache writes failed, {} keys, error: {}", tasks.size(), e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            for (WriteTask task : tasks) {
+                task.complete();
+            }
+        }
+    }
+
+    /**
+     * 一次待写入的缓存
+     */
+    private static class WriteTask {
+
+        private final String cacheKey;
+
+        private final String redisKey;
+
+        private final String field;
+
+        private final byte[] bytes;
+
+        private final int ttlSeconds;
+
+        private final long ticket;
+
+        private final Set<String> tags;
+
+        private final Runnable afterWrite;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        WriteTask(String cacheKey, String redisKey, String field, byte[] bytes, int ttlSeconds, long ticket,
+                  Set<String> tags, Runnable afterWrite) {
+            this.cacheKey = cacheKey;
+            this.redisKey = redisKey;
+            this.field = field;
+            this.bytes = bytes;
+            this.ttlSeconds = ttlSeconds;
+            this.ticket = ticket;
+            this.tags = tags;
+            this.afterWrite = afterWrite;
+        }
+
+        /**
+         * 执行回调，取消、取代和写入可能先后发生，回调只执行一次
+         */
+        void complete() {
+            if (afterWrite == null || !completed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                afterWrite.run();
+            } catch (Exception e) {
+                log.warn("Cache write callback failed for key: {}, error: {}", cacheKey, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jd.platform.hotkey.client.callback.JdHotKeyStore;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点判定
+ * <p>
+ * 优先使用 JD HotKey 集群的判定结果，集群不可用时改用 LocalHotKeyDetector，L1 的热点晋升不依赖外部组件：
+ * <ul>
+ *     <li>未启用 JD HotKey 时始终使用本地探测；</li>
+ *     <li>本地已经探测到热点，而 JD HotKey 超过 hotKeyJdSilenceTimeout 秒没有判定过任何热点，
+ *     视为 etcd 或 worker 不可用，切换到本地探测；</li>
+ *     <li>切换期间仍然向 JD HotKey 上报访问，一旦它重新判定出热点就切换回来。</li>
+ * </ul>
+ * 本地探测出的热点值保存在本节点的 Caffeine 中（hotKeyLocalExpireTime 秒），
+ * 失效时随本地缓存一起删除，其他节点通过失效广播删除。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class HotKeyOracle {
+
+    private final LocalHotKeyDetector detector;
+
+    private final AutoCacheProperties properties;
+
+    private final boolean jdEnabled;
+
+    /**
+     * 本地探测出的热点值
+     */
+    private final Cache<String, Object> hotValues;
+
+    private volatile long lastJdHotAt = System.currentTimeMillis();
+
+    private volatile boolean fallback;
+
+    public HotKeyOracle(LocalHotKeyDetector detector, AutoCacheProperties properties, boolean jdEnabled) {
+        this.detector = detector;
+        this.properties = properties;
+        this.jdEnabled = jdEnabled;
+        this.hotValues = Caffeine.newBuilder()
+                .maximumSize(properties.getHotKeyTopK())
+                .expireAfterWrite(properties.getHotKeyLocalExpireTime(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 本地缓存命中时调用，只计入本地探测
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void touch(String cacheKey) {
+        if (properties.isHotKeyLocalEnabled()) {
+            detector.record(cacheKey);
+        }
+    }
+
+    /**
+     * 本地缓存未命中时调用，记录访问并返回保活的热点值
+     *
+     * @param cacheKey 完整缓存键
+     * @return 热点值，不是热点或没有值时返回 null
+     */
+    public Object get(String cacheKey) {
+        boolean localHot = properties.isHotKeyLocalEnabled() && detector.record(cacheKey);
+        if (jdEnabled && JdHotKeyStore.isHotKey(cacheKey)) {
+            lastJdHotAt = System.currentTimeMillis();
+            return JdHotKeyStore.get(cacheKey);
+        }
+        return localHot && useLocal() ? hotValues.getIfPresent(cacheKey) : null;
+    }
+
+    /**
+     * 写入热点值，不是热点时忽略
+     *
+     * @param cacheKey 完整缓存键
+     * @param value 缓存值
+     */
+    public void smartSet(String cacheKey, Object value) {
+        if (jdEnabled) {
+            JdHotKeyStore.smartSet(cacheKey, value);
+        }
+        if (useLocal() && detector.isHot(cacheKey)) {
+            hotValues.put(cacheKey, value);
+        }
+    }
+
+    /**
+     * 删除热点值，JD HotKey 会通知整个集群
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void remove(String cacheKey) {
+        if (jdEnabled) {
+            JdHotKeyStore.remove(cacheKey);
+        }
+        hotValues.invalidate(cacheKey);
+    }
+
+    /**
+     * 只删除本节点的热点值，用于处理其他节点广播来的失效消息
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void removeLocal(String cacheKey) {
+        hotValues.invalidate(cacheKey);
+    }
+
+    /**
+     * 当前是否使用本地探测
+     *
+     * @return
+     */
+    public boolean useLocal() {
+        if (!properties.isHotKeyLocalEnabled()) {
+            return false;
+        }
+        if (!jdEnabled) {
+            return true;
+        }
+        boolean silent = detector.hasHotKeys()
+                && System.currentTimeMillis() - lastJdHotAt > properties.getHotKeyJdSilenceTimeout() * 1000L;
+        if (silent != fallback) {
+            fallback = silent;
+            if (silent) {
+                log.warn("JD HotKey reported no hot key for {}s while local detector found some, "
+                        + "falling back to local hot key detection", properties.getHotKeyJdSilenceTimeout());
+            } else {
+                log.info("JD HotKey is reporting hot keys again, switching back");
+                hotValues.invalidateAll();
+            }
+        }
+        return silent;
+    }
+}
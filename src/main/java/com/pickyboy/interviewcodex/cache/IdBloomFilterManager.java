@@ -0,0 +1,224 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.CacheMessageBus;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID 布隆过滤器，防止不存在的 ID 穿透到 Redis 和数据库
+ * <p>
+ * 过滤器保存在本地内存，判断只需要几次哈希，不产生任何网络请求。
+ * 每个节点启动后从 IdBloomFilterSource 分页加载全部 ID，之后按固定间隔重建，重建时按最新数量和误判率重新分配容量；
+ * 新增的 ID 写入本地后通过 CacheMessageBus 广播给其他节点。
+ * 布隆过滤器不支持删除，已删除的 ID 仍会通过过滤器，由空值缓存兜底，直到下一次重建。
+ * 过滤器尚未建好时全部放行。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class IdBloomFilterManager {
+
+    private static final String TOPIC_NAME = "auto-cache:bloom";
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    /**
+     * 最小容量，避免数据很少时新增几条就超过设计容量
+     */
+    private static final long MIN_EXPECTED_INSERTIONS = 1024;
+
+    private final CacheMessageBus messageBus;
+
+    private final ObjectProvider<IdBloomFilterSource> sources;
+
+    private final AutoCacheProperties properties;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, FilterHolder> filters = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public IdBloomFilterManager(CacheMessageBus messageBus, ObjectProvider<IdBloomFilterSource> sources,
+                                AutoCacheProperties properties) {
+        this.messageBus = messageBus;
+        this.sources = sources;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isBloomFilterEnabled()) {
+            return;
+        }
+        messageBus.subscribe(TOPIC_NAME, IdBloomFilterMessage.class, this::onMessage);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("id-bloom-filter-rebuild-%d")
+                .setDaemon(true)
+                .build());
+        // 启动时在后台加载，不阻塞应用启动
+        scheduler.scheduleWithFixedDelay(this::rebuildAll, 0, properties.getBloomFilterRebuildInterval(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (properties.isBloomFilterEnabled()) {
+            messageBus.unsubscribe(TOPIC_NAME);
+        }
+    }
+
+    /**
+     * 判断 ID 是否可能存在
+     *
+     * @param name 过滤器名称
+     * @param id ID，支持数字和数字字符串
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(String name, Object id) {
+        if (!properties.isBloomFilterEnabled()) {
+            return true;
+        }
+        FilterHolder holder = filters.get(name);
+        if (holder == null || holder.current == null) {
+            return true;
+        }
+        Long value = toLong(id);
+        return value == null || holder.current.mightContain(value);
+    }
+
+    /**
+     * 登记新增的 ID，并广播给其他节点
+     *
+     * @param name 过滤器名称
+     * @param id 新增的 ID
+     */
+    public void add(String name, Long id) {
+        if (!properties.isBloomFilterEnabled() || id == null) {
+            return;
+        }
+        putLocal(name, Collections.singletonList(id));
+        IdBloomFilterMessage message = new IdBloomFilterMessage();
+        message.setNodeId(nodeId);
+        message.setName(name);
+        message.setIds(Collections.singletonList(id));
+        try {
+            messageBus.publish(TOPIC_NAME, message);
+        } catch (Exception e) {
+            // 其他节点会在下一次重建时补上
+            log.warn("Publish bloom filter insert failed, name: {}, id: {}, error: {}", name, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 重建所有过滤器
+     */
+    public void rebuildAll() {
+        for (IdBloomFilterSource source : sources) {
+            try {
+                rebuild(source);
+            } catch (Exception e) {
+                // 重建失败继续使用旧过滤器
+                log.error("Rebuild bloom filter failed, name: {}", source.name(), e);
+            }
+        }
+    }
+
+    private void rebuild(IdBloomFilterSource source) {
+        long start = System.currentTimeMillis();
+        long expectedInsertions = Math.max(MIN_EXPECTED_INSERTIONS, source.count() * 2);
+        BloomFilter<Long> next = BloomFilter.create(Funnels.longFunnel(), expectedInsertions,
+                properties.getBloomFilterFpp());
+        FilterHolder holder = filters.computeIfAbsent(source.name(), n -> new FilterHolder());
+        // 重建期间新增的 ID 同时写入新旧两个过滤器
+        synchronized (holder) {
+            holder.building = next;
+        }
+        try {
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                ids = source.listIdsAfter(afterId, LOAD_PAGE_SIZE);
+                for (Long id : ids) {
+                    next.put(id);
+                }
+                if (!ids.isEmpty()) {
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == LOAD_PAGE_SIZE);
+            synchronized (holder) {
+                holder.current = next;
+            }
+        } finally {
+            synchronized (holder) {
+                holder.building = null;
+            }
+        }
+        log.info("Rebuilt bloom filter, name: {}, ids: {}, capacity: {}, fpp: {}, cost: {}ms", source.name(),
+                next.approximateElementCount(), expectedInsertions, next.expectedFpp(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void putLocal(String name, List<Long> ids) {
+        FilterHolder holder = filters.get(name);
+        if (holder == null) {
+            return;
+        }
+        synchronized (holder) {
+            for (Long id : ids) {
+                if (holder.current != null) {
+                    holder.current.put(id);
+                }
+                if (holder.building != null) {
+                    holder.building.put(id);
+                }
+            }
+        }
+    }
+
+    private void onMessage(IdBloomFilterMessage message) {
+        if (message == null || nodeId.equals(message.getNodeId()) || message.getIds() == null) {
+            return;
+        }
+        putLocal(message.getName(), message.getIds());
+    }
+
+    private Long toLong(Object id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        if (id instanceof String && NumberUtils.isDigits((String) id)) {
+            return Long.valueOf((String) id);
+        }
+        return null;
+    }
+
+    /**
+     * 单个实体的过滤器
+     * 读取 current 不加锁，替换和写入时加锁，保证重建期间的新增不会丢失
+     */
+    private static class FilterHolder {
+
+        private volatile BloomFilter<Long> current;
+
+        private volatile BloomFilter<Long> building;
+    }
+}
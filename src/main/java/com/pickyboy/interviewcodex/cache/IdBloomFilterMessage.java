@@ -0,0 +1,32 @@
+package com.pickyboy.interviewcodex.cache;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * ID 布隆过滤器新增广播消息
+ *
+ * @author pickyboy
+ */
+@Data
+public class IdBloomFilterMessage implements Serializable {
+
+    /**
+     * 发送节点标识，接收方据此忽略自己发出的消息
+     */
+    private String nodeId;
+
+    /**
+     * 过滤器名称
+     */
+    private String name;
+
+    /**
+     * 新增的 ID
+     */
+    private List<Long> ids;
+
+    private static final long serialVersionUID = 1L;
+}
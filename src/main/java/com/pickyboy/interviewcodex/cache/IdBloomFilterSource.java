@@ -0,0 +1,36 @@
+package com.pickyboy.interviewcodex.cache;
+
+import java.util.List;
+
+/**
+ * ID 布隆过滤器的数据来源
+ * <p>
+ * 每个需要防穿透的实体提供一个实现，重建过滤器时按 ID 升序分页读取全部未删除的 ID。
+ *
+ * @author pickyboy
+ */
+public interface IdBloomFilterSource {
+
+    /**
+     * 过滤器名称，与 @AutoCache(bloomFilter) 对应
+     *
+     * @return
+     */
+    String name();
+
+    /**
+     * 当前 ID 数量，用于估算过滤器容量
+     *
+     * @return
+     */
+    long count();
+
+    /**
+     * 按 ID 升序读取大于 afterId 的一页 ID
+     *
+     * @param afterId 上一页最后一个 ID，第一页传 0
+     * @param limit 每页数量
+     * @return
+     */
+    List<Long> listIdsAfter(long afterId, int limit);
+}
@@ -0,0 +1,261 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.constant.CacheSceneEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存（L1）管理器
+ * <p>
+ * 每个缓存场景一个 Caffeine 实例（W-TinyLFU 淘汰），按序列化大小计权，
+ * 所有 key 都会先经过本地缓存，不再依赖 JD HotKey 判定热点才能命中 L1。
+ * 热点判定只作为可选的晋升信号：被 HotKeyOracle 判定为热点的 key 额外保存一份，
+ * 在本地条目过期后仍能保活（JD HotKey 可用时由集群统一保活，否则由本地热点探测保活）。
+ * 各场景的命中、淘汰等统计以 cache 指标（cache=auto_cache_l1_{scene}）暴露。
+ * 删除本地缓存时先在 CacheInvalidationFence 中记录失效，失效之前发起的回填会被放弃。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class LocalCacheManager {
+
+    private final AutoCacheProperties properties;
+
+    private final HotKeyOracle hotKeyOracle;
+
+    private final MeterRegistry meterRegistry;
+
+    private final CacheInvalidationFence fence;
+
+    private final ConcurrentMap<String, Cache<String, LocalValue>> sceneCaches = new ConcurrentHashMap<>();
+
+    public LocalCacheManager(AutoCacheProperties properties, HotKeyOracle hotKeyOracle, MeterRegistry meterRegistry,
+                             CacheInvalidationFence fence) {
+        this.properties = properties;
+        this.hotKeyOracle = hotKeyOracle;
+        this.meterRegistry = meterRegistry;
+        this.fence = fence;
+    }
+
+    /**
+     * 查询本地缓存
+     *
+     * @param autoCache 缓存注解，用于确定场景配置
+     * @param cacheKey 完整缓存键
+     * @return 缓存值，未命中返回 null
+     */
+    public Object get(AutoCache autoCache, String cacheKey) {
+        if (!isEnabled(autoCache)) {
+            return null;
+        }
+        LocalValue localValue = getSceneCache(autoCache).getIfPresent(cacheKey);
+        if (localValue != null) {
+            // 命中只计入本地热点探测，不上报 JD HotKey
+            hotKeyOracle.touch(cacheKey);
+            return localValue.value;
+        }
+        // 本地未命中时才上报 HotKey，会顺带统计一次访问
+        return hotKeyOracle.get(cacheKey);
+    }
+
+    /**
+     * 写入本地缓存
+     *
+     * @param autoCache 缓存注解
+     * @param cacheKey 完整缓存键
+     * @param value 缓存值（不能是空值占位符）
+     * @param sizeInBytes 序列化后的大小，用于计算权重
+     */
+    public void put(AutoCache autoCache, String cacheKey, Object value, int sizeInBytes) {
+        if (!isEnabled(autoCache) || value == null) {
+            return;
+        }
+        getSceneCache(autoCache).put(cacheKey, new LocalValue(value, Math.max(1, sizeInBytes / 1024)));
+        hotKeyOracle.smartSet(cacheKey, value);
+    }
+
+    /**
+     * 查询本地缓存中 Hash 模式的一个字段
+     *
+     * @param autoCache 缓存注解
+     * @param cacheKey 完整缓存键
+     * @param field 字段名
+     * @return 字段值，未命中返回 null
+     */
+    public Object getField(AutoCache autoCache, String cacheKey, String field) {
+        if (!isEnabled(autoCache)) {
+            return null;
+        }
+        LocalValue localValue = getSceneCache(autoCache).getIfPresent(cacheKey);
+        if (localValue == null || !(localValue.value instanceof LocalHash)) {
+            return null;
+        }
+        LocalValue fieldValue = ((LocalHash) localValue.value).fields.get(field);
+        return fieldValue == null ? null : fieldValue.value;
+    }
+
+    /**
+     * 写入本地缓存中 Hash 模式的一个字段
+     * 同一个实体的所有字段保存在一个条目中，按缓存键失效时一起删除
+     *
+     * @param autoCache 缓存注解
+     * @param cacheKey 完整缓存键
+     * @param field 字段名
+     * @param value 字段值（不能是空值占位符）
+     * @param sizeInBytes 序列化后的大小，用于计算权重
+     */
+    public void putField(AutoCache autoCache, String cacheKey, String field, Object value, int sizeInBytes) {
+        if (!isEnabled(autoCache) || value == null) {
+            return;
+        }
+        getSceneCache(autoCache).asMap().compute(cacheKey, (key, old) -> {
+            // 复制后替换，读取方不会看到修改中的字段表
+            Map<String, LocalValue> fields = new HashMap<>();
+            if (old != null && old.value instanceof LocalHash) {
+                fields.putAll(((LocalHash) old.value).fields);
+            }
+            fields.put(field, new LocalValue(value, Math.max(1, sizeInBytes / 1024)));
+            int weight = 0;
+            for (LocalValue fieldValue : fields.values()) {
+                weight += fieldValue.weight;
+            }
+            return new LocalValue(new LocalHash(fields), weight);
+        });
+    }
+
+    /**
+     * 删除本地缓存
+     *
+     * @param scene 缓存场景
+     * @param cacheKey 完整缓存键
+     */
+    public void invalidate(String scene, String cacheKey) {
+        fence.invalidate(cacheKey, () -> {
+            Cache<String, LocalValue> cache = sceneCaches.get(scene);
+            if (cache != null) {
+                cache.invalidate(cacheKey);
+            }
+            hotKeyOracle.remove(cacheKey);
+        });
+    }
+
+    /**
+     * 只删除本节点 Caffeine 中的条目，用于处理其他节点广播来的失效消息
+     * JD HotKey 的删除由发起节点通知整个集群，这里只删除本节点探测出的热点值
+     *
+     * @param cacheKey 完整缓存键
+     */
+    public void invalidateLocalOnly(String cacheKey) {
+        int index = cacheKey.indexOf("::");
+        if (index < 0) {
+            return;
+        }
+        Cache<String, LocalValue> cache = sceneCaches.get(cacheKey.substring(0, index));
+        fence.invalidate(cacheKey, () -> {
+            if (cache != null) {
+                cache.invalidate(cacheKey);
+            }
+            hotKeyOracle.removeLocal(cacheKey);
+        });
+    }
+
+    /**
+     * 场景本地缓存的条目数
+     *
+     * @param scene 缓存场景
+     * @return
+     */
+    public long estimatedSize(String scene) {
+        Cache<String, LocalValue> cache = sceneCaches.get(scene);
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    /**
+     * 场景本地缓存已使用的权重（KB）
+     *
+     * @param scene 缓存场景
+     * @return
+     */
+    public long weightedSize(String scene) {
+        Cache<String, LocalValue> cache = sceneCaches.get(scene);
+        if (cache == null) {
+            return 0;
+        }
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private boolean isEnabled(AutoCache autoCache) {
+        return properties.isLocalEnabled() && autoCache.enableL1();
+    }
+
+    private Cache<String, LocalValue> getSceneCache(AutoCache autoCache) {
+        return sceneCaches.computeIfAbsent(autoCache.scene(), scene -> buildSceneCache(scene, autoCache));
+    }
+
+    /**
+     * 构建场景缓存，配置优先级：注解 > 场景枚举 > 全局配置
+     */
+    private Cache<String, LocalValue> buildSceneCache(String scene, AutoCache autoCache) {
+        CacheSceneEnum sceneEnum = CacheSceneEnum.getEnumByScene(scene);
+        int maximumWeight = properties.getLocalMaximumWeight();
+        int expireTime = properties.getLocalExpireTime();
+        if (sceneEnum != null) {
+            maximumWeight = sceneEnum.getLocalMaximumWeight();
+            expireTime = sceneEnum.getLocalExpireTime();
+        }
+        if (autoCache.localMaximumWeight() > 0) {
+            maximumWeight = autoCache.localMaximumWeight();
+        }
+        if (autoCache.localExpireTime() > 0) {
+            expireTime = autoCache.localExpireTime();
+        }
+        // 本地过期时间不应超过 Redis 过期时间，否则本地会比 L2 更旧
+        expireTime = Math.min(expireTime, autoCache.expireTime());
+        log.info("Build local cache for scene: {}, maximumWeight: {}KB, expireTime: {}s", scene, maximumWeight, expireTime);
+        Cache<String, LocalValue> cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String key, LocalValue value) -> value.weight)
+                .expireAfterWrite(expireTime, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auto_cache_l1_" + scene);
+        return cache;
+    }
+
+    /**
+     * Hash 模式的本地缓存条目，字段名 -> 字段值
+     */
+    private static class LocalHash {
+
+        private final Map<String, LocalValue> fields;
+
+        private LocalHash(Map<String, LocalValue> fields) {
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * 本地缓存条目，记录权重
+     */
+    private static class LocalValue {
+
+        private final Object value;
+
+        private final int weight;
+
+        private LocalValue(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
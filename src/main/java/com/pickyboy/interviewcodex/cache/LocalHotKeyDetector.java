@@ -0,0 +1,230 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorageBatch;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地热点探测
+ * <p>
+ * 每个节点用滑动窗口 Count-Min Sketch 统计最近 hotKeyWindow 秒的访问次数，
+ * 估计值达到 hotKeyThreshold 的键进入热点表（最多 hotKeyTopK 个，满了替换估计值最小的），
+ * 不依赖 etcd 和 HotKey worker。
+ * 开启 hotKeyClusterEnabled 后，访问次数达到阈值十分之一的键定期合并写入 Redis 有序集合
+ * （auto-cache:hotkey:{窗口编号}），集群总量达到阈值的键在所有节点都视为热点。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class LocalHotKeyDetector {
+
+    private static final String CLUSTER_KEY_PREFIX = "auto-cache:hotkey:";
+
+    private static final int SLOT_COUNT = 10;
+
+    private final CacheStorage storage;
+
+    private final AutoCacheProperties properties;
+
+    private final SlidingCountMinSketch sketch;
+
+    private final LongSupplier clock;
+
+    /**
+     * 热点键 -> 最近一次的估计值
+     */
+    private final Map<String, Integer> heavyHitters = new ConcurrentHashMap<>();
+
+    /**
+     * 待上报到 Redis 的访问次数，只在开启集群汇总时使用
+     */
+    private final Map<String, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+
+    private volatile Set<String> clusterHotKeys = Collections.emptySet();
+
+    private ScheduledExecutorService scheduler;
+
+    public LocalHotKeyDetector(CacheStorage storage, AutoCacheProperties properties) {
+        this(storage, properties, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 毫秒时钟，滑动窗口和集群汇总的分桶都按它计算
+     */
+    public LocalHotKeyDetector(CacheStorage storage, AutoCacheProperties properties, LongSupplier clock) {
+        this.storage = storage;
+        this.properties = properties;
+        this.clock = clock;
+        this.sketch = new SlidingCountMinSketch(properties.getHotKeySketchDepth(), properties.getHotKeySketchWidth(),
+                SLOT_COUNT, properties.getHotKeyWindow() * 1000L, clock);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isHotKeyLocalEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("hot-key-detector-%d")
+                .setDaemon(true)
+                .build());
+        // 每个时间片清理一次已经冷却的热点
+        long slotMillis = Math.max(1, properties.getHotKeyWindow() * 1000L / SLOT_COUNT);
+        scheduler.scheduleWithFixedDelay(this::expireCooledKeys, slotMillis, slotMillis, TimeUnit.MILLISECONDS);
+        if (properties.isHotKeyClusterEnabled()) {
+            long interval = properties.getHotKeyClusterSyncInterval();
+            scheduler.scheduleWithFixedDelay(this::syncClusterQuietly, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 完整缓存键
+     * @return 是否为热点
+     */
+    public boolean record(String key) {
+        int estimate = sketch.increment(key);
+        int threshold = properties.getHotKeyThreshold();
+        if (properties.isHotKeyClusterEnabled() && estimate >= Math.max(1, threshold / 10)) {
+            LongAdder adder = pendingCounts.get(key);
+            if (adder == null && pendingCounts.size() < properties.getHotKeyTopK() * 4) {
+                adder = pendingCounts.computeIfAbsent(key, k -> new LongAdder());
+            }
+            if (adder != null) {
+                adder.increment();
+            }
+        }
+        if (estimate >= threshold && offer(key, estimate)) {
+            return true;
+        }
+        return clusterHotKeys.contains(key);
+    }
+
+    /**
+     * 是否为热点，不计数
+     *
+     * @param key 完整缓存键
+     * @return
+     */
+    public boolean isHot(String key) {
+        return heavyHitters.containsKey(key) || clusterHotKeys.contains(key);
+    }
+
+    /**
+     * 当前是否探测到任何热点
+     *
+     * @return
+     */
+    public boolean hasHotKeys() {
+        return !heavyHitters.isEmpty() || !clusterHotKeys.isEmpty();
+    }
+
+    /**
+     * 当前的热点键，按估计值从高到低排列
+     *
+     * @return
+     */
+    public List<String> topKeys() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(heavyHitters.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        List<String> keys = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Integer> entry : entries) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * 放入热点表，表满时替换估计值最小的键
+     *
+     * @return 是否在热点表中
+     */
+    private boolean offer(String key, int estimate) {
+        if (heavyHitters.replace(key, estimate) != null) {
+            return true;
+        }
+        synchronized (heavyHitters) {
+            if (heavyHitters.size() >= properties.getHotKeyTopK()) {
+                Map.Entry<String, Integer> min = null;
+                for (Map.Entry<String, Integer> entry : heavyHitters.entrySet()) {
+                    if (min == null || entry.getValue() < min.getValue()) {
+                        min = entry;
+                    }
+                }
+                if (min == null || min.getValue() >= estimate) {
+                    return false;
+                }
+                heavyHitters.remove(min.getKey());
+            }
+            heavyHitters.put(key, estimate);
+            return true;
+        }
+    }
+
+    private void expireCooledKeys() {
+        int threshold = properties.getHotKeyThreshold();
+        heavyHitters.entrySet().removeIf(entry -> {
+            int estimate = sketch.estimate(entry.getKey());
+            entry.setValue(estimate);
+            return estimate < threshold;
+        });
+    }
+
+    private void syncClusterQuietly() {
+        try {
+            syncCluster();
+        } catch (Exception e) {
+            // 汇总失败时只使用本节点的统计
+            log.warn("Sync hot key counts failed, error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 上报本节点的访问次数，并读取集群范围内的热点
+     * Redis 中按窗口编号分桶，每个桶保留两个窗口
+     */
+    private void syncCluster() {
+        long windowMillis = properties.getHotKeyWindow() * 1000L;
+        String name = CLUSTER_KEY_PREFIX + clock.getAsLong() / windowMillis;
+        CacheStorageBatch batch = storage.batch();
+        int keyCount = 0;
+        for (String key : pendingCounts.keySet()) {
+            LongAdder adder = pendingCounts.remove(key);
+            if (adder != null && adder.sum() > 0) {
+                batch.incrementScore(name, key, adder.sum());
+                keyCount++;
+            }
+        }
+        if (keyCount > 0) {
+            batch.expire(name, windowMillis * 2);
+            batch.execute();
+        }
+        clusterHotKeys = new HashSet<>(storage.rangeByScore(name, properties.getHotKeyThreshold(),
+                properties.getHotKeyTopK()));
+    }
+}
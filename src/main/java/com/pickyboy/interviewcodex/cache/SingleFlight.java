@@ -0,0 +1,86 @@
+package com.pickyboy.interviewcodex.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 进程内请求合并（single-flight）
+ * <p>
+ * 同一个 key 同时只有一个线程（leader）真正执行加载，其余线程等待 leader 的结果，
+ * 不会各自去抢分布式锁、也不会 sleep 轮询 Redis。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 等待 leader 的最长时间（毫秒），超时后自己执行加载
+     */
+    private final long waitTimeout;
+
+    public SingleFlight(long waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * 执行加载，同一个 key 的并发调用共享一次加载结果
+     *
+     * @param key 合并的 key
+     * @param loader 加载逻辑
+     * @return 加载结果
+     */
+    public Object execute(String key, Loader loader) throws Throwable {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(key, existing, loader);
+        }
+        try {
+            Object result = loader.load();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 当前正在加载的 key 数量
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(String key, CompletableFuture<Object> future, Loader loader) throws Throwable {
+        try {
+            return future.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // leader 的异常原样抛给所有等待者
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            log.warn("Single flight wait timeout for key: {}, loading by self", key);
+            return loader.load();
+        }
+    }
+
+    /**
+     * 加载逻辑，允许抛出任意异常（例如 ProceedingJoinPoint#proceed）
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        Object load() throws Throwable;
+    }
+}
@@ -0,0 +1,144 @@
+package com.pickyboy.interviewcodex.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 滑动窗口 Count-Min Sketch
+ * <p>
+ * 窗口被切分为 slots 个时间片，每个时间片一张 depth × width 的计数表，
+ * 估计值为各行在窗口内所有时间片的计数之和再取最小值，只会高估不会低估。
+ * 时间片轮换时清空最旧的一张表，内存占用固定，与键的数量无关。
+ *
+ * @author pickyboy
+ */
+public class SlidingCountMinSketch {
+
+    private final int depth;
+
+    private final int mask;
+
+    private final long slotMillis;
+
+    private final AtomicIntegerArray[] slots;
+
+    private final LongSupplier clock;
+
+    /**
+     * 当前时间片编号（时间戳 / slotMillis）
+     */
+    private volatile long currentSlot;
+
+    /**
+     * @param depth 哈希函数个数
+     * @param width 每行的计数器个数，会向上取整到 2 的幂
+     * @param slotCount 时间片数量
+     * @param windowMillis 窗口长度（毫秒）
+     */
+    public SlidingCountMinSketch(int depth, int width, int slotCount, long windowMillis) {
+        this(depth, width, slotCount, windowMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param depth 哈希函数个数
+     * @param width 每行的计数器个数，会向上取整到 2 的幂
+     * @param slotCount 时间片数量
+     * @param windowMillis 窗口长度（毫秒）
+     * @param clock 毫秒时钟
+     */
+    public SlidingCountMinSketch(int depth, int width, int slotCount, long windowMillis, LongSupplier clock) {
+        this.depth = depth;
+        this.clock = clock;
+        int tableWidth = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = tableWidth - 1;
+        this.slotMillis = Math.max(1, windowMillis / slotCount);
+        this.slots = new AtomicIntegerArray[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new AtomicIntegerArray(depth * tableWidth);
+        }
+        this.currentSlot = clock.getAsLong() / slotMillis;
+    }
+
+    /**
+     * 计数加一并返回窗口内的估计值
+     *
+     * @param key 键
+     * @return 窗口内的估计访问次数
+     */
+    public int increment(String key) {
+        AtomicIntegerArray table = slots[rotate()];
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 ^ 0x9E3779B9) | 1;
+        int width = mask + 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            table.incrementAndGet(index);
+            estimate = Math.min(estimate, sum(index));
+        }
+        return estimate;
+    }
+
+    /**
+     * 窗口内的估计值，不计数
+     *
+     * @param key 键
+     * @return 窗口内的估计访问次数
+     */
+    public int estimate(String key) {
+        rotate();
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 ^ 0x9E3779B9) | 1;
+        int width = mask + 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, sum(row * width + ((h1 + row * h2) & mask)));
+        }
+        return estimate;
+    }
+
+    private int sum(int index) {
+        int total = 0;
+        for (AtomicIntegerArray slot : slots) {
+            total += slot.get(index);
+        }
+        return total;
+    }
+
+    /**
+     * 切换到当前时间片，清空已经滑出窗口的时间片
+     *
+     * @return 当前时间片下标
+     */
+    private int rotate() {
+        long slot = clock.getAsLong() / slotMillis;
+        if (slot != currentSlot) {
+            synchronized (this) {
+                long previous = currentSlot;
+                if (slot > previous) {
+                    long stale = Math.min(slot - previous, slots.length);
+                    for (long i = 1; i <= stale; i++) {
+                        clear(slots[(int) ((previous + i) % slots.length)]);
+                    }
+                    currentSlot = slot;
+                }
+            }
+        }
+        return (int) (currentSlot % slots.length);
+    }
+
+    private static void clear(AtomicIntegerArray table) {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, 0);
+        }
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,37 @@
+package com.pickyboy.interviewcodex.cache.codec;
+
+import lombok.Getter;
+
+/**
+ * 从 Redis 读出的缓存帧
+ *
+ * @author pickyboy
+ */
+@Getter
+public class CacheFrame {
+
+    /**
+     * 解码后的缓存值
+     */
+    private final Object value;
+
+    /**
+     * 软过期时间戳（毫秒），未开启 refreshAhead 时为 0
+     */
+    private final long softExpireAt;
+
+    /**
+     * Redis 中存储的字节数
+     */
+    private final int size;
+
+    public CacheFrame(Object value, long softExpireAt, int size) {
+        this.value = value;
+        this.softExpireAt = softExpireAt;
+        this.size = size;
+    }
+
+    public boolean isSoftExpired() {
+        return softExpireAt > 0 && System.currentTimeMillis() >= softExpireAt;
+    }
+}
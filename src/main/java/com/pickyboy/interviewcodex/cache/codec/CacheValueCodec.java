@@ -0,0 +1,50 @@
+package com.pickyboy.interviewcodex.cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.lang.reflect.Type;
+
+/**
+ * 缓存值编解码 SPI
+ * <p>
+ * 只负责对象与字节之间的转换，压缩和帧头由 CacheValueSerializer 统一处理。
+ * 需要其他格式（如 Kryo）时实现该接口并注册为 Bean 即可替换默认实现。
+ *
+ * @author pickyboy
+ */
+public interface CacheValueCodec {
+
+    /**
+     * 编码名称，用于日志和配置
+     *
+     * @return
+     */
+    String name();
+
+    /**
+     * 把 Java 类型解析为编解码使用的类型，调用方会按方法缓存结果
+     *
+     * @param type 方法的泛型返回类型
+     * @return
+     */
+    JavaType constructType(Type type);
+
+    /**
+     * 编码
+     *
+     * @param value 缓存值，不为 null
+     * @return
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码
+     *
+     * @param bytes 数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @param type 目标类型
+     * @return
+     */
+    Object decode(byte[] bytes, int offset, int length, JavaType type);
+}
@@ -0,0 +1,176 @@
+package com.pickyboy.interviewcodex.cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存值序列化器
+ * <p>
+ * 写入 Redis 的格式：
+ * <pre>
+ * [flags:1][softExpireAt:8，可选][originalLength:4，可选][payload]
+ * </pre>
+ * flags 的 0x01 位表示 payload 经过 LZ4 压缩，0x02 位表示带有软过期时间（refreshAhead）。
+ * 空值缓存只有一个字节 0x04，没有 payload，所有空值共用同一个数组。
+ * 超过阈值的值才会压缩，压缩后没有变小则保持原样。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+public class CacheValueSerializer {
+
+    private static final byte FLAG_COMPRESSED = 0x01;
+
+    private static final byte FLAG_SOFT_EXPIRE = 0x02;
+
+    private static final byte FLAG_NULL = 0x04;
+
+    /**
+     * 空值缓存的数据，只读，不要修改
+     */
+    public static final byte[] NULL_FRAME = {FLAG_NULL};
+
+    private static final int KNOWN_FLAGS = FLAG_COMPRESSED | FLAG_SOFT_EXPIRE;
+
+    private final CacheValueCodec codec;
+
+    /**
+     * 压缩阈值（字节），小于等于 0 表示不压缩
+     */
+    private final int compressThreshold;
+
+    private final LZ4Compressor compressor;
+
+    private final LZ4FastDecompressor decompressor;
+
+    /**
+     * 方法返回值类型缓存，避免每次命中都重新构造 JavaType
+     */
+    private final Map<Method, JavaType> typeCache = new ConcurrentHashMap<>();
+
+    public CacheValueSerializer(CacheValueCodec codec, int compressThreshold) {
+        this.codec = codec;
+        this.compressThreshold = compressThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    public CacheValueCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * 获取方法返回值对应的类型
+     *
+     * @param method 被缓存的方法
+     * @return
+     */
+    public JavaType resolveType(Method method) {
+        return typeCache.computeIfAbsent(method, m -> codec.constructType(m.getGenericReturnType()));
+    }
+
+    /**
+     * 序列化
+     *
+     * @param value 缓存值，不为 null
+     * @param softExpireAt 软过期时间戳（毫秒），为 0 表示不带软过期时间
+     * @return
+     */
+    public byte[] serialize(Object value, long softExpireAt) {
+        byte[] payload = codec.encode(value);
+        byte flags = 0;
+        int originalLength = payload.length;
+        if (compressThreshold > 0 && payload.length > compressThreshold) {
+            byte[] compressed = compress(payload);
+            if (compressed != null) {
+                payload = compressed;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+        if (softExpireAt > 0) {
+            flags |= FLAG_SOFT_EXPIRE;
+        }
+
+        int headerLength = 1 + ((flags & FLAG_SOFT_EXPIRE) != 0 ? Long.BYTES : 0)
+                + ((flags & FLAG_COMPRESSED) != 0 ? Integer.BYTES : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(headerLength + payload.length);
+        buffer.put(flags);
+        if ((flags & FLAG_SOFT_EXPIRE) != 0) {
+            buffer.putLong(softExpireAt);
+        }
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            buffer.putInt(originalLength);
+        }
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    /**
+     * 是否为空值缓存，只比较长度和第一个字节
+     *
+     * @param bytes Redis 中的数据
+     * @return
+     */
+    public static boolean isNullFrame(byte[] bytes) {
+        return bytes != null && bytes.length == 1 && bytes[0] == FLAG_NULL;
+    }
+
+    /**
+     * 反序列化
+     *
+     * @param bytes Redis 中的数据
+     * @param type 目标类型
+     * @return 无法识别的数据返回 null，由调用方按未命中处理；空值缓存需要先用 isNullFrame 判断
+     */
+    public CacheFrame deserialize(byte[] bytes, JavaType type) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte flags = buffer.get();
+            if ((flags & ~KNOWN_FLAGS) != 0) {
+                // 旧格式（JSON 字符串）或其他未知数据，按未命中处理，重新加载后会被覆盖
+                log.debug("Unknown cache frame flags: {}", flags);
+                return null;
+            }
+            long softExpireAt = (flags & FLAG_SOFT_EXPIRE) != 0 ? buffer.getLong() : 0;
+            Object value;
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                int originalLength = buffer.getInt();
+                byte[] payload = new byte[originalLength];
+                decompressor.decompress(bytes, buffer.position(), payload, 0, originalLength);
+                value = codec.decode(payload, 0, originalLength, type);
+            } else {
+                value = codec.decode(bytes, buffer.position(), buffer.remaining(), type);
+            }
+            return new CacheFrame(value, softExpireAt, bytes.length);
+        } catch (Exception e) {
+            log.warn("Deserialization failed, {} bytes, returning null. Error: {}", bytes.length, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 压缩，压缩后没有变小时返回 null
+     */
+    private byte[] compress(byte[] payload) {
+        byte[] buffer = new byte[compressor.maxCompressedLength(payload.length)];
+        int compressedLength = compressor.compress(payload, 0, payload.length, buffer, 0, buffer.length);
+        if (compressedLength >= payload.length) {
+            return null;
+        }
+        byte[] compressed = new byte[compressedLength];
+        System.arraycopy(buffer, 0, compressed, 0, compressedLength);
+        return compressed;
+    }
+}
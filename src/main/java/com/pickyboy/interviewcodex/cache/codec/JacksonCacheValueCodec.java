@@ -0,0 +1,54 @@
+package com.pickyboy.interviewcodex.cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickyboy.interviewcodex.cache.AutoCacheException;
+
+import java.lang.reflect.Type;
+
+/**
+ * 基于 Jackson 的编解码实现
+ * <p>
+ * 传入 Smile 格式的 ObjectMapper 即为二进制编码，传入普通 ObjectMapper 即为 JSON 编码。
+ *
+ * @author pickyboy
+ */
+public class JacksonCacheValueCodec implements CacheValueCodec {
+
+    private final String name;
+
+    private final ObjectMapper objectMapper;
+
+    public JacksonCacheValueCodec(String name, ObjectMapper objectMapper) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public JavaType constructType(Type type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new AutoCacheException("Serialization failed", e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset, int length, JavaType type) {
+        try {
+            return objectMapper.readValue(bytes, offset, length, type);
+        } catch (Exception e) {
+            throw new AutoCacheException("Deserialization failed", e);
+        }
+    }
+}
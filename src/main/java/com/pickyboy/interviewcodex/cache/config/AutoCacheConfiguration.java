@@ -2,27 +2,194 @@ package com.pickyboy.interviewcodex.cache.config;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pickyboy.interviewcodex.cache.AdaptiveTtlPolicy;
 import com.pickyboy.interviewcodex.cache.AutoCacheAspect;
+import com.pickyboy.interviewcodex.cache.AutoCacheMetrics;
+import com.pickyboy.interviewcodex.cache.CacheAccessRecorder;
 import com.pickyboy.interviewcodex.cache.CacheEvictAspect;
+import com.pickyboy.interviewcodex.cache.CacheInvalidationFence;
+import com.pickyboy.interviewcodex.cache.CacheInvalidationBus;
+import com.pickyboy.interviewcodex.cache.CacheSchemaRegistry;
+import com.pickyboy.interviewcodex.cache.CacheTagIndex;
+import com.pickyboy.interviewcodex.cache.CacheWarmUpHandler;
+import com.pickyboy.interviewcodex.cache.CacheWarmUpService;
+import com.pickyboy.interviewcodex.cache.CacheWriteBehindQueue;
+import com.pickyboy.interviewcodex.cache.HotKeyOracle;
+import com.pickyboy.interviewcodex.cache.IdBloomFilterManager;
+import com.pickyboy.interviewcodex.cache.IdBloomFilterSource;
 import com.pickyboy.interviewcodex.cache.CacheUtils;
+import com.pickyboy.interviewcodex.cache.LocalCacheManager;
+import com.pickyboy.interviewcodex.cache.LocalHotKeyDetector;
+import com.pickyboy.interviewcodex.cache.codec.CacheValueCodec;
+import com.pickyboy.interviewcodex.cache.codec.CacheValueSerializer;
+import com.pickyboy.interviewcodex.cache.codec.JacksonCacheValueCodec;
+import com.pickyboy.interviewcodex.cache.storage.CacheMessageBus;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
+import com.pickyboy.interviewcodex.cache.storage.RedissonCacheMessageBus;
+import com.pickyboy.interviewcodex.cache.storage.RedissonCacheStorage;
+import com.pickyboy.interviewcodex.config.HotKeyConfig;
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class AutoCacheConfiguration {
 
+    /**
+     * 缓存引擎使用的 L2 存储，测试或压测时可以注册 InMemoryCacheStorage 替换
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheStorage cacheStorage(RedissonClient redisson){
+        return new RedissonCacheStorage(redisson);
+    }
+
+    /**
+     * 节点间广播（本地缓存失效、布隆过滤器新增 ID），测试时可以注册 InMemoryCacheMessageBus 替换
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheMessageBus cacheMessageBus(RedissonClient redisson){
+        return new RedissonCacheMessageBus(redisson);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheInvalidationFence cacheInvalidationFence(){
+        return new CacheInvalidationFence();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LocalHotKeyDetector localHotKeyDetector(CacheStorage storage, AutoCacheProperties properties){
+        return new LocalHotKeyDetector(storage, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HotKeyOracle hotKeyOracle(LocalHotKeyDetector detector, AutoCacheProperties properties,
+                                     HotKeyConfig hotKeyConfig){
+        return new HotKeyOracle(detector, properties, hotKeyConfig.isEnabled());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LocalCacheManager localCacheManager(AutoCacheProperties properties, HotKeyOracle hotKeyOracle,
+                                               MeterRegistry meterRegistry, CacheInvalidationFence fence){
+        return new LocalCacheManager(properties, hotKeyOracle, meterRegistry, fence);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AutoCacheMetrics autoCacheMetrics(MeterRegistry meterRegistry, LocalCacheManager localCacheManager){
+        return new AutoCacheMetrics(meterRegistry, localCacheManager);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AdaptiveTtlPolicy adaptiveTtlPolicy(AutoCacheProperties properties){
+        return new AdaptiveTtlPolicy(properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheInvalidationBus cacheInvalidationBus(CacheMessageBus messageBus, LocalCacheManager localCacheManager,
+                                                     AutoCacheProperties properties, AdaptiveTtlPolicy adaptiveTtlPolicy){
+        return new CacheInvalidationBus(messageBus, localCacheManager, properties, adaptiveTtlPolicy);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheAccessRecorder cacheAccessRecorder(CacheStorage storage, AutoCacheProperties properties){
+        return new CacheAccessRecorder(storage, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheWarmUpService cacheWarmUpService(CacheAccessRecorder accessRecorder,
+                                                 ObjectProvider<CacheWarmUpHandler> handlers,
+                                                 @Qualifier("batchExecutor") ThreadPoolExecutor batchExecutor,
+                                                 AutoCacheProperties properties,
+                                                 ApplicationEventPublisher eventPublisher){
+        return new CacheWarmUpService(accessRecorder, handlers, batchExecutor, properties, eventPublisher);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdBloomFilterManager idBloomFilterManager(CacheMessageBus messageBus,
+                                                     ObjectProvider<IdBloomFilterSource> sources,
+                                                     AutoCacheProperties properties){
+        return new IdBloomFilterManager(messageBus, sources, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheSchemaRegistry cacheSchemaRegistry(CacheStorage storage, AutoCacheProperties properties){
+        return new CacheSchemaRegistry(storage, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheTagIndex cacheTagIndex(CacheStorage storage, AutoCacheProperties properties){
+        return new CacheTagIndex(storage, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheWriteBehindQueue cacheWriteBehindQueue(CacheStorage storage, CacheTagIndex cacheTagIndex,
+                                                       CacheInvalidationFence fence, AutoCacheProperties properties,
+                                                       MeterRegistry meterRegistry){
+        return new CacheWriteBehindQueue(storage, cacheTagIndex, fence, properties, meterRegistry);
+    }
+
+    /**
+     * 缓存值编码，默认使用 Smile 二进制格式，需要其他格式时自行注册 CacheValueCodec 即可替换
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheValueCodec cacheValueCodec(AutoCacheProperties properties, ObjectMapper om,
+                                           Jackson2ObjectMapperBuilder builder){
+        if ("json".equalsIgnoreCase(properties.getCodec())) {
+            return new JacksonCacheValueCodec("json", om);
+        }
+        // 与 MVC 使用同一套 Jackson 配置，只把底层格式换成 Smile
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        return new JacksonCacheValueCodec("smile", smileMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheValueSerializer cacheValueSerializer(CacheValueCodec codec, AutoCacheProperties properties){
+        return new CacheValueSerializer(codec, properties.getCompressThreshold());
+    }
+
     @Bean
     @ConditionalOnMissingBean
-    public AutoCacheAspect autoCacheAspect(RedissonClient redisson, ObjectMapper om){
-        return new AutoCacheAspect(redisson,om);
+    public AutoCacheAspect autoCacheAspect(CacheStorage storage, CacheValueSerializer serializer, LocalCacheManager localCacheManager,
+                                           SpelKeyResolver keyResolver, CacheTagIndex cacheTagIndex,
+                                           AutoCacheMetrics metrics, CacheAccessRecorder accessRecorder,
+                                           IdBloomFilterManager idBloomFilterManager, CacheWriteBehindQueue writeBehindQueue,
+                                           AdaptiveTtlPolicy adaptiveTtlPolicy, CacheSchemaRegistry schemaRegistry,
+                                           CacheInvalidationFence fence,
+                                           @Qualifier("cacheRefreshExecutor") ThreadPoolExecutor refreshExecutor){
+        return new AutoCacheAspect(storage,serializer,localCacheManager,keyResolver,cacheTagIndex,metrics,accessRecorder,
+                idBloomFilterManager,writeBehindQueue,adaptiveTtlPolicy,schemaRegistry,fence,refreshExecutor);
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public CacheEvictAspect cacheEvictAspect(CacheUtils cacheUtils){
-        return new CacheEvictAspect(cacheUtils);
+    public CacheEvictAspect cacheEvictAspect(CacheUtils cacheUtils, SpelKeyResolver keyResolver){
+        return new CacheEvictAspect(cacheUtils, keyResolver);
     }
 }
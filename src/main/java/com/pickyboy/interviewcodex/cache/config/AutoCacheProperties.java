@@ -0,0 +1,226 @@
+package com.pickyboy.interviewcodex.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 自动缓存配置
+ *
+ * @author pickyboy
+ */
+@Configuration
+@ConfigurationProperties(prefix = "auto-cache")
+@Data
+public class AutoCacheProperties {
+
+    /**
+     * 是否启用本地缓存（L1），关闭后只使用 Redis
+     */
+    private boolean localEnabled = true;
+
+    /**
+     * 本地缓存默认最大权重（KB），场景枚举和注解都未配置时使用
+     */
+    private int localMaximumWeight = 10 * 1024;
+
+    /**
+     * 本地缓存默认过期时间（秒）
+     */
+    private int localExpireTime = 60;
+
+    /**
+     * 失效广播的合并发送间隔（毫秒）
+     */
+    private long invalidationFlushInterval = 50;
+
+    /**
+     * 每条失效广播最多携带的 key 数量
+     */
+    private int invalidationBatchSize = 1000;
+
+    /**
+     * 缓存值编码格式：smile（二进制）或 json
+     */
+    private String codec = "smile";
+
+    /**
+     * 编码后超过该大小（字节）的值使用 LZ4 压缩，小于等于 0 表示不压缩
+     */
+    private int compressThreshold = 1024;
+
+    /**
+     * 标签索引（Redis Set）的过期时间（秒），每次登记都会顺延，应不小于所有缓存的过期时间
+     */
+    private int tagExpireTime = 24 * 60 * 60;
+
+    /**
+     * 是否在启动时预热，预热完成前就绪探针返回未就绪
+     */
+    private boolean warmUpEnabled = true;
+
+    /**
+     * 每个场景预热的键数量
+     */
+    private int warmUpTopN = 200;
+
+    /**
+     * 预热限流（每秒键数量），所有场景共用
+     */
+    private double warmUpRate = 50;
+
+    /**
+     * 预热批次大小，批次之间并行执行
+     */
+    private int warmUpBatchSize = 20;
+
+    /**
+     * 预热最长等待时间（秒），超时后不再阻塞就绪
+     */
+    private long warmUpTimeout = 120;
+
+    /**
+     * 访问热度写入 Redis 的间隔（秒）
+     */
+    private long accessFlushInterval = 10;
+
+    /**
+     * 访问热度衰减间隔（秒）
+     */
+    private long accessDecayInterval = 60 * 60;
+
+    /**
+     * 访问热度衰减系数
+     */
+    private double accessDecayFactor = 0.5;
+
+    /**
+     * 每个场景最多保留的热度键数量
+     */
+    private int accessMaxTracked = 10000;
+
+    /**
+     * 是否启用 ID 布隆过滤器
+     */
+    private boolean bloomFilterEnabled = true;
+
+    /**
+     * 布隆过滤器误判率
+     */
+    private double bloomFilterFpp = 0.001;
+
+    /**
+     * 布隆过滤器重建间隔（秒），重建时清除已删除的 ID
+     */
+    private long bloomFilterRebuildInterval = 6 * 60 * 60;
+
+    /**
+     * 异步写入队列容量
+     */
+    private int writeBehindQueueCapacity = 10000;
+
+    /**
+     * 异步写入的合并间隔（毫秒）
+     */
+    private long writeBehindFlushInterval = 5;
+
+    /**
+     * 每个 RBatch 最多包含的写入数量
+     */
+    private int writeBehindBatchSize = 500;
+
+    /**
+     * 队列已满时的处理方式：caller_runs 调用线程同步写入，drop_oldest 丢弃最早的写入
+     */
+    private String writeBehindRejectPolicy = "caller_runs";
+
+    /**
+     * 自适应过期时间：每次失效对应的读取次数达到该值时使用注解的 expireTime，按比例延长或缩短
+     */
+    private double adaptiveTtlReadsPerInvalidation = 10;
+
+    /**
+     * 自适应过期时间的最小倍数
+     */
+    private double adaptiveTtlMinFactor = 0.25;
+
+    /**
+     * 自适应过期时间的最大倍数
+     */
+    private double adaptiveTtlMaxFactor = 4;
+
+    /**
+     * 自适应过期时间上限（秒）
+     */
+    private int adaptiveTtlMaxExpireTime = 24 * 60 * 60;
+
+    /**
+     * 读写计数的衰减窗口（秒），每个窗口减半
+     */
+    private long adaptiveTtlWindow = 60 * 60;
+
+    /**
+     * 最多跟踪的缓存键数量
+     */
+    private long adaptiveTtlMaxTracked = 100000;
+
+    /**
+     * 是否启用本地热点探测，JD HotKey 不可用时作为热点判定
+     */
+    private boolean hotKeyLocalEnabled = true;
+
+    /**
+     * 本地热点探测的滑动窗口（秒）
+     */
+    private long hotKeyWindow = 10;
+
+    /**
+     * 窗口内访问次数达到该值视为热点
+     */
+    private int hotKeyThreshold = 50;
+
+    /**
+     * 最多同时保留的热点数量
+     */
+    private int hotKeyTopK = 500;
+
+    /**
+     * Count-Min Sketch 的行数（哈希函数个数）
+     */
+    private int hotKeySketchDepth = 4;
+
+    /**
+     * Count-Min Sketch 每行的计数器个数
+     */
+    private int hotKeySketchWidth = 8192;
+
+    /**
+     * 本地探测出的热点值保留时间（秒）
+     */
+    private long hotKeyLocalExpireTime = 60;
+
+    /**
+     * 本地探测到热点而 JD HotKey 持续多久（秒）没有判定出热点时，视为 JD HotKey 不可用
+     */
+    private long hotKeyJdSilenceTimeout = 60;
+
+    /**
+     * 是否通过 Redis 汇总各节点的访问次数
+     */
+    private boolean hotKeyClusterEnabled = false;
+
+    /**
+     * 集群汇总间隔（秒）
+     */
+    private long hotKeyClusterSyncInterval = 2;
+
+    /**
+     * 缓存结构版本的心跳间隔（秒）
+     */
+    private long schemaHeartbeatInterval = 60;
+
+    /**
+     * 超过该时间（秒）没有心跳的结构版本视为已下线，删除缓存时不再处理
+     */
+    private long schemaVersionTtl = 180;
+}
@@ -1,7 +1,14 @@
 package com.pickyboy.interviewcodex.cache.config;
 
+import com.pickyboy.interviewcodex.cache.AdaptiveTtlPolicy;
+import com.pickyboy.interviewcodex.cache.CacheInvalidationBus;
+import com.pickyboy.interviewcodex.cache.CacheInvalidationFence;
+import com.pickyboy.interviewcodex.cache.CacheSchemaRegistry;
+import com.pickyboy.interviewcodex.cache.CacheTagIndex;
 import com.pickyboy.interviewcodex.cache.CacheUtils;
-import org.redisson.api.RedissonClient;
+import com.pickyboy.interviewcodex.cache.CacheWriteBehindQueue;
+import com.pickyboy.interviewcodex.cache.LocalCacheManager;
+import com.pickyboy.interviewcodex.cache.storage.CacheStorage;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,11 +22,22 @@ public class CacheConfig {
 
     /**
      * 缓存工具类Bean
-     * @param redissonClient Redis客户端
+     * @param storage 缓存存储（L2）
+     * @param localCacheManager 本地缓存管理器
+     * @param cacheInvalidationBus 本地缓存失效总线
+     * @param cacheTagIndex 缓存标签索引
+     * @param writeBehindQueue 缓存异步写入队列
+     * @param adaptiveTtlPolicy 自适应过期时间
+     * @param schemaRegistry 缓存值结构版本
+     * @param fence 缓存失效栅栏
      * @return CacheUtils实例
      */
     @Bean
-    public CacheUtils cacheUtils(RedissonClient redissonClient) {
-        return new CacheUtils(redissonClient);
+    public CacheUtils cacheUtils(CacheStorage storage, LocalCacheManager localCacheManager,
+                                 CacheInvalidationBus cacheInvalidationBus, CacheTagIndex cacheTagIndex,
+                                 CacheWriteBehindQueue writeBehindQueue, AdaptiveTtlPolicy adaptiveTtlPolicy,
+                                 CacheSchemaRegistry schemaRegistry, CacheInvalidationFence fence) {
+        return new CacheUtils(storage, localCacheManager, cacheInvalidationBus, cacheTagIndex, writeBehindQueue,
+                adaptiveTtlPolicy, schemaRegistry, fence);
     }
 }
\ No newline at end of file
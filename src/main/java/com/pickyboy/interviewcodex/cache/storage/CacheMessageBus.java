@@ -0,0 +1,39 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import java.util.function.Consumer;
+
+/**
+ * 自动缓存的节点间广播
+ * <p>
+ * 本地缓存失效和布隆过滤器新增的 ID 通过它通知其他节点，
+ * 生产环境使用 RedissonCacheMessageBus（RTopic），单元测试使用 InMemoryCacheMessageBus，在同一个 JVM 内同步投递。
+ * 消息同样会投递给发送者自己，接收方按消息中的节点标识过滤。
+ *
+ * @author pickyboy
+ */
+public interface CacheMessageBus {
+
+    /**
+     * 向频道广播一条消息
+     *
+     * @param channel 频道
+     * @param message 消息，需要能被 Jackson 序列化
+     */
+    void publish(String channel, Object message);
+
+    /**
+     * 订阅频道
+     *
+     * @param channel 频道
+     * @param type 消息类型
+     * @param listener 监听器
+     */
+    <M> void subscribe(String channel, Class<M> type, Consumer<M> listener);
+
+    /**
+     * 取消本节点在频道上的所有订阅
+     *
+     * @param channel 频道
+     */
+    void unsubscribe(String channel);
+}
@@ -0,0 +1,139 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 自动缓存的远程存储（L2）
+ * <p>
+ * 缓存引擎（切面、清理工具、异步写入队列、标签索引、结构版本、访问统计、热点汇总）只通过该接口访问 L2，
+ * 生产环境使用 RedissonCacheStorage，单元测试和本地压测使用 InMemoryCacheStorage，不依赖任何外部服务。
+ * 只包含缓存引擎用到的操作，语义与对应的 Redis 命令一致。
+ *
+ * @author pickyboy
+ */
+public interface CacheStorage {
+
+    /**
+     * 读取字符串值（GET）
+     *
+     * @param key 键
+     * @return 不存在返回 null
+     */
+    byte[] get(String key);
+
+    /**
+     * 批量读取字符串值（MGET），一次往返
+     *
+     * @param keys 键
+     * @return 键 -> 值，不存在的键不返回
+     */
+    Map<String, byte[]> getAll(Collection<String> keys);
+
+    /**
+     * 读取 Hash 的一个字段（HGET）
+     *
+     * @param key 键
+     * @param field 字段
+     * @return 不存在返回 null
+     */
+    byte[] getField(String key, String field);
+
+    /**
+     * 写入字符串值并设置过期时间（SETEX）
+     *
+     * @param key 键
+     * @param value 值
+     * @param ttlSeconds 过期时间（秒）
+     */
+    void set(String key, byte[] value, int ttlSeconds);
+
+    /**
+     * 键不存在时写入并设置过期时间（SET NX EX）
+     *
+     * @param key 键
+     * @param value 值
+     * @param ttlSeconds 过期时间（秒）
+     * @return 是否写入
+     */
+    boolean setIfAbsent(String key, byte[] value, int ttlSeconds);
+
+    /**
+     * 删除键（DEL）
+     *
+     * @param keys 键
+     * @return 实际删除的数量
+     */
+    long delete(String... keys);
+
+    /**
+     * 读取多个集合的所有成员（SMEMBERS），一次往返
+     *
+     * @param setKeys 集合的键
+     * @return 键 -> 成员，不存在的集合返回空集合
+     */
+    Map<String, Set<String>> members(Collection<String> setKeys);
+
+    /**
+     * 向有序集合添加成员（ZADD）
+     *
+     * @param key 键
+     * @param score 分数
+     * @param member 成员
+     */
+    void addScored(String key, double score, String member);
+
+    /**
+     * 查询分数不小于 min 的成员（ZRANGEBYSCORE min +inf）
+     *
+     * @param key 键
+     * @param min 最小分数（包含）
+     * @return 成员
+     */
+    Collection<String> rangeByScore(String key, double min);
+
+    /**
+     * 查询分数不小于 min 的成员，按分数从低到高最多返回 limit 个（ZRANGEBYSCORE min +inf LIMIT 0 limit）
+     *
+     * @param key 键
+     * @param min 最小分数（包含）
+     * @param limit 最多返回的数量
+     * @return 成员
+     */
+    Collection<String> rangeByScore(String key, double min, int limit);
+
+    /**
+     * 按分数从高到低查询前 count 个成员（ZREVRANGE 0 count-1）
+     *
+     * @param key 键
+     * @param count 数量
+     * @return 成员
+     */
+    List<String> topScored(String key, int count);
+
+    /**
+     * 所有成员的分数乘以 factor，再只保留分数最高的 maxMembers 个（ZUNIONSTORE WEIGHTS、ZREMRANGEBYRANK）
+     *
+     * @param key 键
+     * @param factor 系数
+     * @param maxMembers 保留的成员数
+     */
+    void scaleScores(String key, double factor, int maxMembers);
+
+    /**
+     * 获取分布式锁
+     *
+     * @param name 锁名称
+     * @return
+     */
+    CacheStorageLock lock(String name);
+
+    /**
+     * 创建批处理，execute 时一次往返执行所有操作（不保证原子性）
+     *
+     * @return
+     */
+    CacheStorageBatch batch();
+}
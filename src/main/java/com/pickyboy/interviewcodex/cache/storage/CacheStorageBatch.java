@@ -0,0 +1,61 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import java.util.Collection;
+
+/**
+ * 缓存存储的批处理，操作按添加顺序执行
+ *
+ * @author pickyboy
+ */
+public interface CacheStorageBatch {
+
+    /**
+     * 写入字符串值并设置过期时间（SETEX）
+     */
+    void set(String key, byte[] value, int ttlSeconds);
+
+    /**
+     * 写入 Hash 的一个字段（HSET），并把整个 Hash 的过期时间设置为 ttlSeconds
+     */
+    void setField(String key, String field, byte[] value, int ttlSeconds);
+
+    /**
+     * 删除键（DEL）
+     */
+    void delete(String... keys);
+
+    /**
+     * 向集合添加成员（SADD），并把集合的过期时间设置为 ttlSeconds
+     */
+    void addMembers(String setKey, Collection<String> members, int ttlSeconds);
+
+    /**
+     * 从集合移除成员（SREM）
+     */
+    void removeMembers(String setKey, Collection<String> members);
+
+    /**
+     * 向有序集合添加成员（ZADD）
+     */
+    void addScored(String key, double score, String member);
+
+    /**
+     * 增加有序集合成员的分数（ZINCRBY），成员不存在时从 0 开始
+     */
+    void incrementScore(String key, String member, double delta);
+
+    /**
+     * 移除分数小于 max 的成员（ZREMRANGEBYSCORE -inf (max）
+     */
+    void removeScoredBelow(String key, double max);
+
+    /**
+     * 设置过期时间（PEXPIRE）
+     */
+    void expire(String key, long ttlMillis);
+
+    /**
+     * 执行所有操作
+     */
+    void execute();
+}
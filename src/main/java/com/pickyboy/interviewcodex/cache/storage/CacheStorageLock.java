@@ -0,0 +1,26 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+/**
+ * 缓存存储提供的分布式锁，锁的持有者按线程区分
+ *
+ * @author pickyboy
+ */
+public interface CacheStorageLock {
+
+    /**
+     * 尝试加锁
+     *
+     * @param waitMillis 最长等待时间（毫秒）
+     * @param leaseMillis 租期（毫秒），到期后自动释放
+     * @return 是否加锁成功
+     * @throws InterruptedException
+     */
+    boolean tryLock(long waitMillis, long leaseMillis) throws InterruptedException;
+
+    /**
+     * 释放指定线程持有的锁，可以在其他线程中调用（异步写入完成后由写入线程释放）
+     *
+     * @param threadId 加锁的线程
+     */
+    void unlock(long threadId);
+}
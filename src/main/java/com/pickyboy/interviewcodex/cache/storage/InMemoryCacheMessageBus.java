@@ -0,0 +1,41 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 基于内存的节点间广播
+ * <p>
+ * 用于单元测试和本地压测，不依赖 Redis。多个组件共用一个实例即可模拟多个节点，
+ * 消息在发送线程上同步投递给所有订阅者，不经过序列化。
+ *
+ * @author pickyboy
+ */
+public class InMemoryCacheMessageBus implements CacheMessageBus {
+
+    private final Map<String, List<Consumer<Object>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String channel, Object message) {
+        for (Consumer<Object> listener : listeners.getOrDefault(channel, List.of())) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public <M> void subscribe(String channel, Class<M> type, Consumer<M> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(message -> {
+            if (type.isInstance(message)) {
+                listener.accept(type.cast(message));
+            }
+        });
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        listeners.remove(channel);
+    }
+}
@@ -0,0 +1,383 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于内存的缓存存储
+ * <p>
+ * 用于单元测试和本地压测，不依赖 Redis。
+ * 每个键的值是字节数组、Hash、集合或有序集合中的一种，过期在读取时惰性判断，
+ * 时钟可以注入，测试中推进时钟即可模拟过期。单个操作是原子的，批处理按顺序执行但不保证原子性，与 Redis 的 pipeline 一致。
+ *
+ * @author pickyboy
+ */
+public class InMemoryCacheStorage implements CacheStorage {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, LockState> locks = new HashMap<>();
+
+    private final LongSupplier clock;
+
+    public InMemoryCacheStorage() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 毫秒时钟
+     */
+    public InMemoryCacheStorage(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = live(key);
+        return entry != null && entry.value instanceof byte[] ? (byte[]) entry.value : null;
+    }
+
+    @Override
+    public Map<String, byte[]> getAll(Collection<String> keys) {
+        Map<String, byte[]> values = new LinkedHashMap<>();
+        for (String key : keys) {
+            byte[] value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] getField(String key, String field) {
+        Entry entry = live(key);
+        if (entry == null || !(entry.value instanceof Map)) {
+            return null;
+        }
+        synchronized (entry) {
+            return ((Map<String, byte[]>) entry.value).get(field);
+        }
+    }
+
+    @Override
+    public void set(String key, byte[] value, int ttlSeconds) {
+        entries.put(key, new Entry(value, expireAt(ttlSeconds * 1000L)));
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, byte[] value, int ttlSeconds) {
+        Entry entry = new Entry(value, expireAt(ttlSeconds * 1000L));
+        return entries.compute(key, (k, old) -> old == null || old.isExpired(clock.getAsLong()) ? entry : old) == entry;
+    }
+
+    @Override
+    public long delete(String... keys) {
+        long deleted = 0;
+        for (String key : keys) {
+            Entry entry = entries.remove(key);
+            if (entry != null && !entry.isExpired(clock.getAsLong())) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Set<String>> members(Collection<String> setKeys) {
+        Map<String, Set<String>> members = new LinkedHashMap<>();
+        for (String setKey : setKeys) {
+            Entry entry = live(setKey);
+            Set<String> set = new LinkedHashSet<>();
+            if (entry != null && entry.value instanceof Set) {
+                synchronized (entry) {
+                    set.addAll((Set<String>) entry.value);
+                }
+            }
+            members.put(setKey, set);
+        }
+        return members;
+    }
+
+    @Override
+    public void addScored(String key, double score, String member) {
+        Entry entry = container(key, Map.class);
+        synchronized (entry) {
+            scores(entry).put(member, score);
+        }
+    }
+
+    @Override
+    public Collection<String> rangeByScore(String key, double min) {
+        return rangeByScore(key, min, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Collection<String> rangeByScore(String key, double min, int limit) {
+        Entry entry = live(key);
+        List<String> members = new ArrayList<>();
+        if (entry == null || !(entry.value instanceof Map)) {
+            return members;
+        }
+        synchronized (entry) {
+            scores(entry).entrySet().stream()
+                    .filter(e -> e.getValue() >= min)
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(limit)
+                    .forEach(e -> members.add(e.getKey()));
+        }
+        return members;
+    }
+
+    @Override
+    public List<String> topScored(String key, int count) {
+        Entry entry = live(key);
+        List<String> members = new ArrayList<>();
+        if (entry == null || !(entry.value instanceof Map) || count <= 0) {
+            return members;
+        }
+        synchronized (entry) {
+            scores(entry).entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                    .limit(count)
+                    .forEach(e -> members.add(e.getKey()));
+        }
+        return members;
+    }
+
+    @Override
+    public void scaleScores(String key, double factor, int maxMembers) {
+        Entry entry = live(key);
+        if (entry == null || !(entry.value instanceof Map)) {
+            return;
+        }
+        synchronized (entry) {
+            Map<String, Double> scores = scores(entry);
+            scores.replaceAll((member, score) -> score * factor);
+            if (scores.size() > maxMembers) {
+                Set<String> kept = new HashSet<>(topScored(key, maxMembers));
+                scores.keySet().retainAll(kept);
+            }
+        }
+    }
+
+    @Override
+    public CacheStorageLock lock(String name) {
+        return new CacheStorageLock() {
+            @Override
+            public boolean tryLock(long waitMillis, long leaseMillis) throws InterruptedException {
+                long threadId = Thread.currentThread().getId();
+                long deadline = System.currentTimeMillis() + waitMillis;
+                synchronized (locks) {
+                    while (true) {
+                        LockState state = locks.get(name);
+                        long now = System.currentTimeMillis();
+                        if (state == null || state.leaseUntil <= now) {
+                            locks.put(name, new LockState(threadId, now + leaseMillis));
+                            return true;
+                        }
+                        long remaining = Math.min(deadline, state.leaseUntil) - now;
+                        if (deadline <= now) {
+                            return false;
+                        }
+                        locks.wait(Math.max(1, remaining));
+                    }
+                }
+            }
+
+            @Override
+            public void unlock(long threadId) {
+                synchronized (locks) {
+                    LockState state = locks.get(name);
+                    if (state != null && state.threadId == threadId) {
+                        locks.remove(name);
+                        locks.notifyAll();
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public CacheStorageBatch batch() {
+        return new InMemoryBatch();
+    }
+
+    /**
+     * 当前存储的键数量（包括尚未清理的过期键），用于测试
+     *
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(clock.getAsLong())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private long expireAt(long ttlMillis) {
+        return ttlMillis > 0 ? clock.getAsLong() + ttlMillis : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Double> scores(Entry entry) {
+        return (Map<String, Double>) entry.value;
+    }
+
+    /**
+     * 取出指定类型的容器，不存在、已过期或类型不同时新建
+     */
+    private Entry container(String key, Class<?> type) {
+        return entries.compute(key, (k, old) -> {
+            if (old != null && !old.isExpired(clock.getAsLong()) && type.isInstance(old.value)) {
+                return old;
+            }
+            return new Entry(type == Set.class ? new LinkedHashSet<String>() : new HashMap<String, Object>(), 0);
+        });
+    }
+
+    private static class Entry {
+
+        private final Object value;
+
+        private volatile long expireAt;
+
+        private Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expireAt > 0 && expireAt <= now;
+        }
+    }
+
+    private static class LockState {
+
+        private final long threadId;
+
+        private final long leaseUntil;
+
+        private LockState(long threadId, long leaseUntil) {
+            this.threadId = threadId;
+            this.leaseUntil = leaseUntil;
+        }
+    }
+
+    /**
+     * 按添加顺序执行的批处理
+     */
+    private class InMemoryBatch implements CacheStorageBatch {
+
+        private final List<Runnable> operations = new ArrayList<>();
+
+        @Override
+        public void set(String key, byte[] value, int ttlSeconds) {
+            operations.add(() -> InMemoryCacheStorage.this.set(key, value, ttlSeconds));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void setField(String key, String field, byte[] value, int ttlSeconds) {
+            operations.add(() -> {
+                Entry entry = container(key, Map.class);
+                synchronized (entry) {
+                    ((Map<String, byte[]>) entry.value).put(field, value);
+                    entry.expireAt = expireAt(ttlSeconds * 1000L);
+                }
+            });
+        }
+
+        @Override
+        public void delete(String... keys) {
+            operations.add(() -> InMemoryCacheStorage.this.delete(keys));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void addMembers(String setKey, Collection<String> members, int ttlSeconds) {
+            operations.add(() -> {
+                Entry entry = container(setKey, Set.class);
+                synchronized (entry) {
+                    ((Set<String>) entry.value).addAll(members);
+                    entry.expireAt = expireAt(ttlSeconds * 1000L);
+                }
+            });
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void removeMembers(String setKey, Collection<String> members) {
+            operations.add(() -> {
+                Entry entry = live(setKey);
+                if (entry != null && entry.value instanceof Set) {
+                    synchronized (entry) {
+                        ((Set<String>) entry.value).removeAll(members);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void addScored(String key, double score, String member) {
+            operations.add(() -> InMemoryCacheStorage.this.addScored(key, score, member));
+        }
+
+        @Override
+        public void incrementScore(String key, String member, double delta) {
+            operations.add(() -> {
+                Entry entry = container(key, Map.class);
+                synchronized (entry) {
+                    scores(entry).merge(member, delta, Double::sum);
+                }
+            });
+        }
+
+        @Override
+        public void removeScoredBelow(String key, double max) {
+            operations.add(() -> {
+                Entry entry = live(key);
+                if (entry != null && entry.value instanceof Map) {
+                    synchronized (entry) {
+                        scores(entry).values().removeIf(score -> score < max);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void expire(String key, long ttlMillis) {
+            operations.add(() -> {
+                Entry entry = live(key);
+                if (entry != null) {
+                    entry.expireAt = expireAt(ttlMillis);
+                }
+            });
+        }
+
+        @Override
+        public void execute() {
+            for (Runnable operation : operations) {
+                operation.run();
+            }
+            operations.clear();
+        }
+    }
+}
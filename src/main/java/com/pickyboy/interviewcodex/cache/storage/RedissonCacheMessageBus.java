@@ -0,0 +1,49 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.TypedJsonJacksonCodec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redisson RTopic 的节点间广播
+ * <p>
+ * 消息使用 TypedJsonJacksonCodec 按类型编码，与之前直接使用 RTopic 时的消息格式一致。
+ *
+ * @author pickyboy
+ */
+public class RedissonCacheMessageBus implements CacheMessageBus {
+
+    private final RedissonClient redissonClient;
+
+    /**
+     * 消息类型 -> 编解码器，编解码器内部持有 ObjectMapper，复用避免每条消息重新创建
+     */
+    private final Map<Class<?>, Codec> codecs = new ConcurrentHashMap<>();
+
+    public RedissonCacheMessageBus(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public void publish(String channel, Object message) {
+        redissonClient.getTopic(channel, codec(message.getClass())).publish(message);
+    }
+
+    @Override
+    public <M> void subscribe(String channel, Class<M> type, Consumer<M> listener) {
+        redissonClient.getTopic(channel, codec(type)).addListener(type, (ch, message) -> listener.accept(message));
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        redissonClient.getTopic(channel).removeAllListeners();
+    }
+
+    private Codec codec(Class<?> type) {
+        return codecs.computeIfAbsent(type, TypedJsonJacksonCodec::new);
+    }
+}
@@ -0,0 +1,214 @@
+package com.pickyboy.interviewcodex.cache.storage;
+
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RSetAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redisson 的缓存存储
+ * <p>
+ * 值使用 ByteArrayCodec，Hash 使用 HASH_CODEC，集合和有序集合使用 StringCodec，
+ * 与之前直接使用 RedissonClient 时写入的数据格式一致。
+ *
+ * @author pickyboy
+ */
+public class RedissonCacheStorage implements CacheStorage {
+
+    /**
+     * Hash 模式的编码：字段名为字符串，字段值为序列化后的字节
+     */
+    private static final Codec HASH_CODEC = new CompositeCodec(StringCodec.INSTANCE, ByteArrayCodec.INSTANCE);
+
+    private final RedissonClient redissonClient;
+
+    public RedissonCacheStorage(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        RBucket<byte[]> bucket = redissonClient.getBucket(key, ByteArrayCodec.INSTANCE);
+        return bucket.get();
+    }
+
+    @Override
+    public Map<String, byte[]> getAll(Collection<String> keys) {
+        return redissonClient.getBuckets(ByteArrayCodec.INSTANCE).get(keys.toArray(new String[0]));
+    }
+
+    @Override
+    public byte[] getField(String key, String field) {
+        RMap<String, byte[]> hash = redissonClient.getMap(key, HASH_CODEC);
+        return hash.get(field);
+    }
+
+    @Override
+    public void set(String key, byte[] value, int ttlSeconds) {
+        redissonClient.getBucket(key, ByteArrayCodec.INSTANCE).set(value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, byte[] value, int ttlSeconds) {
+        return redissonClient.getBucket(key, ByteArrayCodec.INSTANCE).trySet(value, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public long delete(String... keys) {
+        return redissonClient.getKeys().delete(keys);
+    }
+
+    @Override
+    public Map<String, Set<String>> members(Collection<String> setKeys) {
+        RBatch batch = redissonClient.createBatch();
+        Map<String, RFuture<Set<String>>> futures = new LinkedHashMap<>();
+        for (String setKey : setKeys) {
+            RSetAsync<String> set = batch.getSet(setKey, StringCodec.INSTANCE);
+            futures.put(setKey, set.readAllAsync());
+        }
+        batch.execute();
+        Map<String, Set<String>> members = new LinkedHashMap<>();
+        futures.forEach((setKey, future) -> members.put(setKey, new LinkedHashSet<>(future.toCompletableFuture().join())));
+        return members;
+    }
+
+    @Override
+    public void addScored(String key, double score, String member) {
+        redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE).add(score, member);
+    }
+
+    @Override
+    public Collection<String> rangeByScore(String key, double min) {
+        RScoredSortedSet<String> set = redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE);
+        return set.valueRange(min, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    @Override
+    public Collection<String> rangeByScore(String key, double min, int limit) {
+        RScoredSortedSet<String> set = redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE);
+        return set.valueRange(min, true, Double.POSITIVE_INFINITY, true, 0, limit);
+    }
+
+    @Override
+    public List<String> topScored(String key, int count) {
+        RScoredSortedSet<String> set = redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE);
+        return new ArrayList<>(set.valueRangeReversed(0, count - 1));
+    }
+
+    @Override
+    public void scaleScores(String key, double factor, int maxMembers) {
+        RScoredSortedSet<String> set = redissonClient.getScoredSortedSet(key, StringCodec.INSTANCE);
+        set.union(Collections.singletonMap(key, factor));
+        int size = set.size();
+        if (size > maxMembers) {
+            set.removeRangeByRank(0, size - maxMembers - 1);
+        }
+    }
+
+    @Override
+    public CacheStorageLock lock(String name) {
+        RLock lock = redissonClient.getLock(name);
+        return new CacheStorageLock() {
+            @Override
+            public boolean tryLock(long waitMillis, long leaseMillis) throws InterruptedException {
+                return lock.tryLock(waitMillis, leaseMillis, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void unlock(long threadId) {
+                lock.unlockAsync(threadId);
+            }
+        };
+    }
+
+    @Override
+    public CacheStorageBatch batch() {
+        return new RedissonBatch(redissonClient.createBatch());
+    }
+
+    /**
+     * RBatch 的包装
+     */
+    private static class RedissonBatch implements CacheStorageBatch {
+
+        private final RBatch batch;
+
+        private RedissonBatch(RBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void set(String key, byte[] value, int ttlSeconds) {
+            batch.getBucket(key, ByteArrayCodec.INSTANCE).setAsync(value, ttlSeconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void setField(String key, String field, byte[] value, int ttlSeconds) {
+            RMapAsync<String, byte[]> hash = batch.getMap(key, HASH_CODEC);
+            hash.fastPutAsync(field, value);
+            hash.expireAsync(ttlSeconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void delete(String... keys) {
+            batch.getKeys().deleteAsync(keys);
+        }
+
+        @Override
+        public void addMembers(String setKey, Collection<String> members, int ttlSeconds) {
+            RSetAsync<String> set = batch.getSet(setKey, StringCodec.INSTANCE);
+            set.addAllAsync(members);
+            set.expireAsync(ttlSeconds, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void removeMembers(String setKey, Collection<String> members) {
+            batch.getSet(setKey, StringCodec.INSTANCE).removeAllAsync(members);
+        }
+
+        @Override
+        public void addScored(String key, double score, String member) {
+            batch.getScoredSortedSet(key, StringCodec.INSTANCE).addAsync(score, member);
+        }
+
+        @Override
+        public void incrementScore(String key, String member, double delta) {
+            batch.getScoredSortedSet(key, StringCodec.INSTANCE).addScoreAsync(member, delta);
+        }
+
+        @Override
+        public void removeScoredBelow(String key, double max) {
+            batch.getScoredSortedSet(key, StringCodec.INSTANCE).removeRangeByScoreAsync(Double.NEGATIVE_INFINITY, true,
+                    max, false);
+        }
+
+        @Override
+        public void expire(String key, long ttlMillis) {
+            batch.getKeys().expireAsync(key, ttlMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void execute() {
+            batch.execute();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.pickyboy.interviewcodex.common;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * @author pickyboy
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    /**
+     * 本页数据
+     */
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 下一页的游标，原样传回即可，为空表示没有下一页
+     */
+    private String nextCursor;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -2,6 +2,7 @@ package com.pickyboy.interviewcodex.config;
 
 import com.jd.platform.hotkey.client.ClientStarter;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,7 +14,13 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ConfigurationProperties(prefix = "hotkey")
 @Data
+@Slf4j
 public class HotKeyConfig {
+    /**
+     * 是否启用 JD HotKey，没有 etcd 的环境可以关闭，自动缓存只使用本地缓存
+     */
+    private boolean enabled = true;
+
     /**
      * etcd 地址
      */
@@ -36,13 +43,22 @@ public class HotKeyConfig {
 
     @Bean
     public void initHotKey(){
-        ClientStarter.Builder builder = new ClientStarter.Builder();
-        ClientStarter clientStarter = builder.setAppName(appName)
-                .setEtcdServer(etcdServer)
-                .setCaffeineSize(caffeineSize)
-                .setPushPeriod(batchPushInterval)
-                .build();
-                clientStarter.startPipeline();
+        if (!enabled) {
+            log.info("JD HotKey disabled, skip client start");
+            return;
+        }
+        try {
+            ClientStarter.Builder builder = new ClientStarter.Builder();
+            ClientStarter clientStarter = builder.setAppName(appName)
+                    .setEtcdServer(etcdServer)
+                    .setCaffeineSize(caffeineSize)
+                    .setPushPeriod(batchPushInterval)
+                    .build();
+            clientStarter.startPipeline();
+        } catch (Exception e) {
+            // etcd 不可用时不影响启动，自动缓存会改用本地热点探测
+            log.error("Start JD HotKey client failed, etcd: {}", etcdServer, e);
+        }
     }
 }
 
@@ -47,4 +47,28 @@ public class ThreadPoolConfig {
 
         return executor;
     }
+
+    /**
+     * 缓存异步刷新线程池（refresh-ahead）
+     * 队列满时直接丢弃刷新任务，读请求继续返回旧值，不能占用调用者线程
+     *
+     * @return ThreadPoolExecutor 实例
+     */
+    @Bean("cacheRefreshExecutor")
+    public ThreadPoolExecutor cacheRefreshExecutor() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("cache-refresh-thread-%d")
+                .setDaemon(true)
+                .build();
+        int coreSize = Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(
+                coreSize,
+                coreSize * 2,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy() // 由调用方捕获拒绝异常后放弃本次刷新
+        );
+    }
 }
@@ -6,19 +6,62 @@ package com.pickyboy.interviewcodex.constant;
  * 缓存场景枚举
  * <p>
  * 它定义了所有业务缓存的前缀，并提供 getScene() 方法供注解使用。
+ * 同时给出各场景本地缓存（L1）的默认容量与过期时间，注解上未显式配置时使用。
  *
  * @author pickyboy
  */
 public enum CacheSceneEnum {
 
-    BANK_DETAIL("bank_detail"),
-    QUESTION_DETAIL("question_detail");
+    BANK_DETAIL("bank_detail", 20 * 1024, 60),
+    QUESTION_DETAIL("question_detail", 50 * 1024, 120),
+    // 搜索结果只保存 id，同时用作所有搜索结果的标签，索引更新时按标签整体清除
+    QUESTION_SEARCH("question_search", 5 * 1024, 10);
 
     private final String scene;
+
+    /**
+     * 本地缓存最大权重（KB），每个条目按序列化后的大小计权，最少计 1
+     */
+    private final int localMaximumWeight;
+
+    /**
+     * 本地缓存过期时间（秒）
+     */
+    private final int localExpireTime;
+
     public String getScene() {
         return scene;
     }
-    CacheSceneEnum(String scene) {
+
+    public int getLocalMaximumWeight() {
+        return localMaximumWeight;
+    }
+
+    public int getLocalExpireTime() {
+        return localExpireTime;
+    }
+
+    CacheSceneEnum(String scene, int localMaximumWeight, int localExpireTime) {
         this.scene = scene;
+        this.localMaximumWeight = localMaximumWeight;
+        this.localExpireTime = localExpireTime;
+    }
+
+    /**
+     * 根据 scene 获取枚举
+     *
+     * @param scene
+     * @return
+     */
+    public static CacheSceneEnum getEnumByScene(String scene) {
+        if (scene == null) {
+            return null;
+        }
+        for (CacheSceneEnum anEnum : CacheSceneEnum.values()) {
+            if (anEnum.scene.equals(scene)) {
+                return anEnum;
+            }
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
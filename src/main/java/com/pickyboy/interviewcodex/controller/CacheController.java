@@ -0,0 +1,56 @@
+package com.pickyboy.interviewcodex.controller;
+
+import cn.dev33.satoken.annotation.SaCheckRole;
+import com.pickyboy.interviewcodex.cache.AutoCacheMetrics;
+import com.pickyboy.interviewcodex.cache.CacheSceneStats;
+import com.pickyboy.interviewcodex.cache.CacheWarmUpService;
+import com.pickyboy.interviewcodex.common.BaseResponse;
+import com.pickyboy.interviewcodex.common.ResultUtils;
+import com.pickyboy.interviewcodex.constant.UserConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 缓存管理接口
+ *
+ * @author pickyboy
+ */
+@RestController
+@RequestMapping("/cache")
+@Slf4j
+public class CacheController {
+
+    @Resource
+    private AutoCacheMetrics autoCacheMetrics;
+
+    @Resource
+    private CacheWarmUpService cacheWarmUpService;
+
+    /**
+     * 获取各缓存场景的统计（仅管理员可用）
+     *
+     * @return
+     */
+    @GetMapping("/stats")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<List<CacheSceneStats>> getCacheStats() {
+        return ResultUtils.success(autoCacheMetrics.stats());
+    }
+
+    /**
+     * 按访问热度预热缓存（仅管理员可用）
+     *
+     * @return 是否已开始，已有预热在执行时返回 false
+     */
+    @PostMapping("/warmup")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Boolean> warmUpCache() {
+        return ResultUtils.success(cacheWarmUpService.warmUpAsync());
+    }
+}
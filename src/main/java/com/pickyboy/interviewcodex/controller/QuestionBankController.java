@@ -80,7 +80,7 @@ public class QuestionBankController {
         User loginUser = userService.getLoginUser(request);
         questionBank.setUserId(loginUser.getId());
         // 写入数据库
-        boolean result = questionBankService.save(questionBank);
+        boolean result = questionBankService.addQuestionBankWithCache(questionBank);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
         // 返回新写入的数据 id
         long newQuestionBankId = questionBank.getId();
@@ -18,6 +18,7 @@ import com.pickyboy.guardian.anotation.Rule;
 import com.pickyboy.guardian.model.constant.GuardianConstants;
 import com.pickyboy.interviewcodex.annotation.AuthCheck;
 import com.pickyboy.interviewcodex.common.BaseResponse;
+import com.pickyboy.interviewcodex.common.CursorPage;
 import com.pickyboy.interviewcodex.common.DeleteRequest;
 import com.pickyboy.interviewcodex.common.ErrorCode;
 import com.pickyboy.interviewcodex.common.ResultUtils;
@@ -88,7 +89,7 @@ public class QuestionController {
         User loginUser = userService.getLoginUser(request);
         question.setUserId(loginUser.getId());
         // 写入数据库
-        boolean result = questionService.save(question);
+        boolean result = questionService.addQuestionWithCache(question);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
         // 返回新写入的数据 id
         long newQuestionId = question.getId();
@@ -368,6 +369,16 @@ public class QuestionController {
         return ResultUtils.success(questionService.getQuestionVOPage(questionPage, request));
     }
 
+    /*
+    *  es游标分页搜索题目，翻页时传回上一页的 nextCursor
+    * */
+    @PostMapping("/search/cursor/vo")
+    public BaseResponse<CursorPage<QuestionVO>> searchQuestionByCursor(@RequestBody QuestionQueryRequest questionQueryRequest) {
+        long size = questionQueryRequest.getPageSize();
+        ThrowUtils.throwIf(size <= 0 || size > 200, ErrorCode.PARAMS_ERROR);
+        return ResultUtils.success(questionService.searchByCursor(questionQueryRequest));
+    }
+
     /**
      * 根据题目ID获取相关推荐题目
      *
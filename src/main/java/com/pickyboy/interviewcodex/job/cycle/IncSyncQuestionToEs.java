@@ -1,22 +1,49 @@
 package com.pickyboy.interviewcodex.job.cycle;
 
 import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.pickyboy.interviewcodex.cache.CacheUtils;
+import com.pickyboy.interviewcodex.constant.CacheSceneEnum;
 import com.pickyboy.interviewcodex.esdao.QuestionEsDao;
-import com.pickyboy.interviewcodex.lock.DistributeLock;
+import com.pickyboy.interviewcodex.job.once.FullSyncQuestionToEs;
+import com.pickyboy.interviewcodex.mapper.QuestionEsOutboxMapper;
 import com.pickyboy.interviewcodex.mapper.QuestionMapper;
 import com.pickyboy.interviewcodex.model.dto.question.QuestionEsDTO;
 import com.pickyboy.interviewcodex.model.entity.Question;
+import com.pickyboy.interviewcodex.model.entity.QuestionEsOutbox;
+import com.pickyboy.interviewcodex.service.QuestionBankQuestionService;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * 增量同步题目到 es
+ * <p>
+ * 题目和题库题目的写入由触发器在同一事务中登记到 question_es_outbox，这里按 id 顺序消费：
+ * 读取题目当前的完整状态批量写入 ES（已物理删除的从 ES 删除），只有题库关系变化的题目只局部更新 questionBankIds，
+ * 成功后再删除这批发件箱记录。
+ * 本次执行同步过题目的话，按标签清除所有搜索结果缓存，之后的搜索查询更新后的索引。
+ * 写入的是当前状态而不是变更内容，重复消费是幂等的；同步失败时记录保留，下次（包括重启后）从未删除的记录继续。
  *
  * @author pickyboy
  */
@@ -25,41 +52,238 @@ import java.util.stream.Collectors;
 @Slf4j
 public class IncSyncQuestionToEs {
 
+    /**
+     * 每批消费的发件箱记录数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 单次执行最多消费的批数，积压时分多次执行，不超过分布式锁的过期时间
+     */
+    private static final int MAX_BATCHES = 20;
+
+    /**
+     * 发件箱变更类型：题库关系
+     */
+    private static final Integer TYPE_BANK = 1;
+
+    /**
+     * 分布式锁名，全量重建切换别名后持有它，等待正在执行的同步结束
+     */
+    public static final String LOCK_NAME = "sync:question:es#singleton";
+
+    /**
+     * 锁的过期时间（毫秒），多个节点同时消费会把旧状态写回 ES，要覆盖单次执行的最长时间
+     */
+    private static final long LOCK_EXPIRE_TIME = 30000;
+
+    /**
+     * 发件箱为空的标记，所有节点共享，存在期间不再查询发件箱
+     */
+    private static final String IDLE_KEY = "sync:question:es:idle";
+
+    /**
+     * 发件箱为空时的轮询间隔（毫秒），有积压时按调度间隔（200 毫秒）轮询
+     */
+    private static final long IDLE_INTERVAL = 1000;
+
+    /**
+     * 本节点已知发件箱为空的截止时间，到这个时间之前不访问 Redis
+     */
+    private volatile long idleUntil;
+
     @Resource
     private QuestionMapper questionMapper;
 
+    @Resource
+    private QuestionEsOutboxMapper questionEsOutboxMapper;
+
+    @Resource
+    private QuestionBankQuestionService questionBankQuestionService;
+
     @Resource
     private QuestionEsDao questionEsDao;
 
+    @Resource
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private CacheUtils cacheUtils;
+
     /**
-     * 每分钟执行一次
+     * 上一次执行结束 200 毫秒后执行，发件箱为空时所有节点退避到每秒一次
+     * <p>
+     * 没有使用 @DistributeLock：每 200 毫秒一次的抢锁失败在切面中会按异常处理，
+     * 这里先检查空闲标记再抢锁，抢不到说明其他节点正在消费，直接返回
      */
-    @Scheduled(fixedRate = 60 * 1000)
-    @DistributeLock(
-            scene = "sync:question:es",
-            key = "'singleton'", // 对于单例任务，提供一个固定的静态key即可
-            waitTime = 0,        // 推荐配置：0秒等待
-            expireTime = 55000   // 推荐配置：略小于任务执行间隔
-    )
+    @Scheduled(fixedDelay = 200)
     public void run() {
-        // 查询近 5 分钟内的数据
-        Date fiveMinutesAgoDate = new Date(new Date().getTime() - 5 * 60 * 1000L);
-        List<Question> questionList = questionMapper.listQuestionWithDelete(fiveMinutesAgoDate);
-        if (CollUtil.isEmpty(questionList)) {
-            log.info("no inc question");
+        if (System.currentTimeMillis() < idleUntil) {
+            return;
+        }
+        RBucket<String> idle = redissonClient.getBucket(IDLE_KEY, StringCodec.INSTANCE);
+        long remain = idle.remainTimeToLive();
+        if (remain > 0) {
+            idleUntil = System.currentTimeMillis() + remain;
             return;
         }
-        List<QuestionEsDTO> questionEsDTOList = questionList.stream()
-                .map(QuestionEsDTO::objToDto)
+        RLock lock = redissonClient.getLock(LOCK_NAME);
+        try {
+            if (!lock.tryLock(0, LOCK_EXPIRE_TIME, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            if (syncOutbox() == 0) {
+                idle.set("1", IDLE_INTERVAL, TimeUnit.MILLISECONDS);
+                idleUntil = System.currentTimeMillis() + IDLE_INTERVAL;
+            }
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 消费发件箱，积压时最多消费 MAX_BATCHES 批
+     *
+     * @return 消费的记录数
+     */
+    private int syncOutbox() {
+        int synced = 0;
+        try {
+            for (int i = 0; i < MAX_BATCHES; i++) {
+                int size = syncBatch();
+                synced += size;
+                if (size < BATCH_SIZE) {
+                    return synced;
+                }
+            }
+            log.info("IncSyncQuestionToEs outbox backlog remains, continue next round");
+            return synced;
+        } finally {
+            // 搜索结果缓存只有题目 id 和总数，无法判断受哪些题目影响，有更新就全部清除；
+            // 一次执行只清除一次，积压时不会每批都清
+            if (synced > 0) {
+                evictSearchCache();
+            }
+        }
+    }
+
+    /**
+     * 先刷新索引再清除缓存，否则清除后、刷新前的搜索会把旧结果重新缓存
+     */
+    private void evictSearchCache() {
+        elasticsearchRestTemplate.indexOps(QuestionEsDTO.class).refresh();
+        cacheUtils.evictByTags(List.of(CacheSceneEnum.QUESTION_SEARCH.getScene()));
+    }
+
+    /**
+     * 消费一批发件箱记录
+     *
+     * @return 本批记录数
+     */
+    private int syncBatch() {
+        List<QuestionEsOutbox> outboxList = questionEsOutboxMapper.selectList(new LambdaQueryWrapper<QuestionEsOutbox>()
+                .orderByAsc(QuestionEsOutbox::getId)
+                .last("limit " + BATCH_SIZE));
+        if (CollUtil.isEmpty(outboxList)) {
+            return 0;
+        }
+        Set<Long> questionIdSet = new LinkedHashSet<>();
+        Set<Long> bankChangedIdSet = new LinkedHashSet<>();
+        for (QuestionEsOutbox outbox : outboxList) {
+            if (TYPE_BANK.equals(outbox.getType())) {
+                bankChangedIdSet.add(outbox.getQuestionId());
+            } else {
+                questionIdSet.add(outbox.getQuestionId());
+            }
+        }
+        // 题目本身也变了的整篇重写，只有题库关系变化的只更新 questionBankIds
+        bankChangedIdSet.removeAll(questionIdSet);
+        // 局部更新失败（ES 中还没有这篇文档）的改为整篇写入
+        Set<Long> failedIdSet = updateQuestionBankIds(bankChangedIdSet);
+        questionIdSet.addAll(failedIdSet);
+        int removed = questionIdSet.isEmpty() ? 0 : indexQuestions(questionIdSet);
+        markReindexDirty(outboxList);
+        // 按 id 删除而不是按范围删除，并发事务提交顺序和 id 顺序不一致时不会漏掉后提交的记录
+        questionEsOutboxMapper.deleteBatchIds(outboxList.stream()
+                .map(QuestionEsOutbox::getId)
+                .collect(Collectors.toList()));
+        log.info("IncSyncQuestionToEs synced {} questions, {} bank changes, removed {}",
+                questionIdSet.size() - removed, bankChangedIdSet.size() - failedIdSet.size(), removed);
+        return outboxList.size();
+    }
+
+    /**
+     * 全量重建正在进行时记下同步过的题目，重建任务切换别名后会把它们再写一遍新索引
+     * 在写完 ES 之后检查：检查时重建还没开始的话，重建读取的数据已经包含这批修改
+     */
+    private void markReindexDirty(List<QuestionEsOutbox> outboxList) {
+        RMap<String, String> reindex = redissonClient.getMap(FullSyncQuestionToEs.CHECKPOINT_KEY, StringCodec.INSTANCE);
+        if (!reindex.containsKey("index")) {
+            return;
+        }
+        RSet<String> dirty = redissonClient.getSet(FullSyncQuestionToEs.DIRTY_KEY, StringCodec.INSTANCE);
+        dirty.addAll(outboxList.stream()
+                .map(outbox -> String.valueOf(outbox.getQuestionId()))
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * 按题目当前的完整状态整篇写入，数据库中已经不存在的题目从 ES 删除
+     *
+     * @return 删除的题目数
+     */
+    private int indexQuestions(Set<Long> questionIdSet) {
+        // 包括逻辑删除的题目，ES 中的 isDelete 随之更新
+        List<Question> questionList = questionMapper.listQuestionWithDeleteByIds(questionIdSet);
+        if (CollUtil.isNotEmpty(questionList)) {
+            Map<Long, List<Long>> questionBankIdMap = questionBankQuestionService.getQuestionBankIdMap(
+                    questionList.stream().map(Question::getId).collect(Collectors.toList()));
+            questionEsDao.saveAll(questionList.stream()
+                    .map(question -> QuestionEsDTO.objToDto(question, questionBankIdMap.get(question.getId())))
+                    .collect(Collectors.toList()));
+        }
+        Set<Long> removedIdSet = new LinkedHashSet<>(questionIdSet);
+        questionList.forEach(question -> removedIdSet.remove(question.getId()));
+        if (!removedIdSet.isEmpty()) {
+            questionEsDao.deleteAllById(removedIdSet);
+        }
+        return removedIdSet.size();
+    }
+
+    /**
+     * 一个 bulk 请求局部更新一批题目的 questionBankIds，值取自数据库中的当前关系，重复执行结果不变
+     *
+     * @return 更新失败的题目 id
+     */
+    private Set<Long> updateQuestionBankIds(Set<Long> questionIdSet) {
+        if (questionIdSet.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Map<Long, List<Long>> questionBankIdMap = questionBankQuestionService.getQuestionBankIdMap(questionIdSet);
+        List<UpdateQuery> updateQueries = questionIdSet.stream()
+                .map(questionId -> {
+                    Document document = Document.create();
+                    document.put("questionBankIds", questionBankIdMap.getOrDefault(questionId, new ArrayList<>()));
+                    return UpdateQuery.builder(String.valueOf(questionId)).withDocument(document).build();
+                })
                 .collect(Collectors.toList());
-        final int pageSize = 500;
-        int total = questionEsDTOList.size();
-        log.info("IncSyncQuestionToEs start, total {}", total);
-        for (int i = 0; i < total; i += pageSize) {
-            int end = Math.min(i + pageSize, total);
-            log.info("sync from {} to {}", i, end);
-            questionEsDao.saveAll(questionEsDTOList.subList(i, end));
+        try {
+            elasticsearchRestTemplate.bulkUpdate(updateQueries, QuestionEsDTO.class);
+            return Collections.emptySet();
+        } catch (BulkFailureException e) {
+            return e.getFailedDocuments().keySet().stream()
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet());
         }
-        log.info("IncSyncQuestionToEs end, total {}", total);
     }
 }
@@ -1,20 +1,65 @@
 package com.pickyboy.interviewcodex.job.once;
 
-import cn.hutool.core.collection.CollUtil;
-import com.pickyboy.interviewcodex.esdao.QuestionEsDao;
-
+import cn.hutool.core.io.IoUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pickyboy.interviewcodex.cache.CacheUtils;
+import com.pickyboy.interviewcodex.constant.CacheSceneEnum;
+import com.pickyboy.interviewcodex.job.cycle.IncSyncQuestionToEs;
+import com.pickyboy.interviewcodex.mapper.QuestionMapper;
 import com.pickyboy.interviewcodex.model.dto.question.QuestionEsDTO;
 import com.pickyboy.interviewcodex.model.entity.Question;
-import com.pickyboy.interviewcodex.service.QuestionService;
+import com.pickyboy.interviewcodex.service.QuestionBankQuestionService;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.xcontent.XContentType;
+import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
 
 import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * 全量题目帖子到 es
+ * <p>
+ * 重建到新的 question_vN 索引，建好之后再把 question 别名原子地切换过去，重建期间搜索仍然使用旧索引：
+ * 1. 新索引先以 0 副本、关闭刷新的方式创建，按 id 游标分批读取题目，多个线程并行批量写入；
+ * 2. 写完后恢复副本数和刷新间隔，刷新一次，切换别名（旧索引保留，用于回滚）；
+ * 3. 重建期间的修改由增量同步写到了旧索引，同步时记下了题目 id（包括只改了题库关系的），切换后把这些题目再写一遍。
+ * 进度（已连续写入成功的最大 id）记录在 Redis，失败后重新执行会从断点继续。
  *
  * @author pickyboy
  */
@@ -23,29 +68,266 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FullSyncQuestionToEs implements CommandLineRunner {
 
+    private static final String ALIAS = "question";
+
+    private static final Pattern VERSIONED_INDEX = Pattern.compile(ALIAS + "_v(\\d+)");
+
+    private static final String MAPPING_LOCATION = "es/question_mapping.json";
+
+    /**
+     * 重建进度，存在 index 字段说明重建正在进行
+     */
+    public static final String CHECKPOINT_KEY = "reindex:question";
+
+    /**
+     * 重建期间增量同步过的题目 id
+     */
+    public static final String DIRTY_KEY = "reindex:question:dirty";
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final int WORKER_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * 每写入多少批输出一次速度
+     */
+    private static final int REPORT_INTERVAL = 20;
+
+    @Resource
+    private QuestionMapper questionMapper;
+
+    @Resource
+    private QuestionBankQuestionService questionBankQuestionService;
+
     @Resource
-    private QuestionService questionService;
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
 
     @Resource
-    private QuestionEsDao questionEsDao;
+    private RedissonClient redissonClient;
+
+    @Resource
+    private CacheUtils cacheUtils;
 
     @Override
-    public void run(String... args) {
-        // 全量获取题目
-        List<Question> questionList = questionService.list();
-        if (CollUtil.isEmpty(questionList)) {
-            return;
-        }
-        // 转换为esDTO
-        List<QuestionEsDTO> questionEsDTOList = questionList.stream().map(QuestionEsDTO::objToDto).collect(Collectors.toList());
-        final int pageSize = 500;
-        int total = questionEsDTOList.size();
-        log.info("FullSyncQuestionToEs start, total {}", total);
-        for (int i = 0; i < total; i += pageSize) {
-            int end = Math.min(i + pageSize, total);
-            log.info("sync from {} to {}", i, end);
-            questionEsDao.saveAll(questionEsDTOList.subList(i, end));
-        }
-        log.info("FullSyncQuestionToEs end, total {}", total);
+    public void run(String... args) throws Exception {
+        RMap<String, String> checkpoint = redissonClient.getMap(CHECKPOINT_KEY, StringCodec.INSTANCE);
+        Set<String> aliasIndices = aliasIndices();
+        String index = checkpoint.get("index");
+        long lastId;
+        if (index != null && indexExists(index)) {
+            lastId = Long.parseLong(checkpoint.getOrDefault("lastId", "0"));
+            log.info("FullSyncQuestionToEs resume, index {}, from id {}", index, lastId);
+        } else {
+            index = nextIndex();
+            lastId = 0;
+            createIndex(index);
+            // 先登记重建开始，再读取题目，之后提交的修改一定会被增量同步记下
+            checkpoint.putAll(Map.of("index", index, "lastId", "0"));
+            log.info("FullSyncQuestionToEs start, index {}", index);
+        }
+        // 断点续传时别名可能已经指向新索引
+        aliasIndices.remove(index);
+
+        long total = load(index, lastId, checkpoint);
+        restoreSettings(index, replicas(aliasIndices));
+        swapAlias(index, aliasIndices);
+        long caughtUp = catchUp(index);
+        // 新索引的相关度和排序可能和旧索引不同，清除所有搜索结果缓存
+        cacheUtils.evictByTags(List.of(CacheSceneEnum.QUESTION_SEARCH.getScene()));
+        log.info("FullSyncQuestionToEs end, index {}, total {}, caught up {}, previous indices {}",
+                index, total, caughtUp, aliasIndices);
+    }
+
+    /**
+     * 按 id 游标分批读取并行写入，只有前面的批次都写入成功才推进断点
+     *
+     * @return 本次写入的文档数
+     */
+    private long load(String index, long lastId, RMap<String, String> checkpoint) throws Exception {
+        ExecutorService workers = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WORKER_COUNT * 2),
+                new ThreadFactoryBuilder().setNameFormat("question-reindex-%d").build(),
+                // 队列满时由读取线程自己写入，内存中最多只有几批数据
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        Deque<Map.Entry<Long, Future<?>>> pending = new ArrayDeque<>();
+        AtomicLong indexed = new AtomicLong();
+        long startNanos = System.nanoTime();
+        int chunkCount = 0;
+        try {
+            while (true) {
+                List<Question> chunk = questionMapper.selectList(new LambdaQueryWrapper<Question>()
+                        .gt(Question::getId, lastId)
+                        .orderByAsc(Question::getId)
+                        .last("limit " + CHUNK_SIZE));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).getId();
+                pending.add(Map.entry(lastId, workers.submit(() -> {
+                    bulkIndex(index, chunk);
+                    indexed.addAndGet(chunk.size());
+                })));
+                while (!pending.isEmpty() && pending.peek().getValue().isDone()) {
+                    commit(pending.poll(), checkpoint);
+                }
+                if (++chunkCount % REPORT_INTERVAL == 0) {
+                    report(indexed.get(), startNanos, lastId);
+                }
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+            }
+            while (!pending.isEmpty()) {
+                commit(pending.poll(), checkpoint);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        report(indexed.get(), startNanos, lastId);
+        return indexed.get();
+    }
+
+    private void commit(Map.Entry<Long, Future<?>> chunk, RMap<String, String> checkpoint) throws Exception {
+        // 写入失败时抛出异常，断点停在上一个成功的批次
+        chunk.getValue().get();
+        checkpoint.fastPut("lastId", String.valueOf(chunk.getKey()));
+    }
+
+    private void report(long indexed, long startNanos, long lastId) {
+        double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        log.info("FullSyncQuestionToEs indexed {} docs, {} docs/s, last id {}", indexed,
+                String.format("%.0f", indexed / seconds), lastId);
+    }
+
+    private void bulkIndex(String index, List<Question> questionList) {
+        Map<Long, List<Long>> questionBankIdMap = questionBankQuestionService.getQuestionBankIdMap(
+                questionList.stream().map(Question::getId).collect(Collectors.toList()));
+        List<IndexQuery> queries = questionList.stream()
+                .map(question -> QuestionEsDTO.objToDto(question, questionBankIdMap.get(question.getId())))
+                .map(dto -> new IndexQueryBuilder().withId(String.valueOf(dto.getId())).withObject(dto).build())
+                .collect(Collectors.toList());
+        elasticsearchRestTemplate.bulkIndex(queries, IndexCoordinates.of(index));
+    }
+
+    /**
+     * 重建期间增量同步过的题目按当前状态（包括逻辑删除的）再写一遍，已物理删除的从新索引删除，
+     * 此时别名已经切换，之后的修改由增量同步直接写入新索引。
+     * 切换前开始的同步可能在切换后才登记题目 id，所以先取走已登记的，再持有同步任务的锁等它结束，
+     * 取走剩下的之后才删除重建标记，持锁期间开始的同步已经写入新索引
+     *
+     * @return 补写的题目数
+     */
+    private long catchUp(String index) {
+        RSet<String> dirty = redissonClient.getSet(DIRTY_KEY, StringCodec.INSTANCE);
+        long caughtUp = drain(index, dirty);
+        RLock syncLock = redissonClient.getLock(IncSyncQuestionToEs.LOCK_NAME);
+        syncLock.lock();
+        try {
+            caughtUp += drain(index, dirty);
+            redissonClient.getKeys().delete(CHECKPOINT_KEY, DIRTY_KEY);
+        } finally {
+            syncLock.unlock();
+        }
+        return caughtUp;
+    }
+
+    /**
+     * 每次从集合中取出（SPOP）一批 id 补写，直到集合为空，取出期间新登记的 id 也会被处理
+     */
+    private long drain(String index, RSet<String> dirty) {
+        long drained = 0;
+        Set<String> popped;
+        while (!(popped = dirty.removeRandom(CHUNK_SIZE)).isEmpty()) {
+            List<Long> questionIds = popped.stream().map(Long::valueOf).collect(Collectors.toList());
+            List<Question> questionList = questionMapper.listQuestionWithDeleteByIds(questionIds);
+            if (!questionList.isEmpty()) {
+                bulkIndex(index, questionList);
+            }
+            Set<Long> removedIdSet = new HashSet<>(questionIds);
+            questionList.forEach(question -> removedIdSet.remove(question.getId()));
+            for (Long removedId : removedIdSet) {
+                elasticsearchRestTemplate.delete(String.valueOf(removedId), IndexCoordinates.of(index));
+            }
+            drained += questionIds.size();
+        }
+        return drained;
+    }
+
+    private void createIndex(String index) throws IOException {
+        String mapping;
+        try (InputStream inputStream = new ClassPathResource(MAPPING_LOCATION).getInputStream()) {
+            mapping = IoUtil.readUtf8(inputStream);
+        }
+        CreateIndexRequest request = new CreateIndexRequest(index)
+                .source(mapping, XContentType.JSON)
+                // 写入期间不需要副本和刷新
+                .settings(Settings.builder()
+                        .put("index.number_of_replicas", 0)
+                        .put("index.refresh_interval", "-1"));
+        elasticsearchRestTemplate.execute(client -> client.indices().create(request, RequestOptions.DEFAULT));
+    }
+
+    private void restoreSettings(String index, int replicas) {
+        UpdateSettingsRequest request = new UpdateSettingsRequest(index)
+                .settings(Settings.builder()
+                        .put("index.number_of_replicas", replicas)
+                        .putNull("index.refresh_interval"));
+        elasticsearchRestTemplate.execute(client -> client.indices().putSettings(request, RequestOptions.DEFAULT));
+        elasticsearchRestTemplate.indexOps(IndexCoordinates.of(index)).refresh();
+    }
+
+    /**
+     * 在一个请求中移除旧索引的别名并添加新索引的别名，切换是原子的
+     */
+    private void swapAlias(String index, Set<String> previousIndices) {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        for (String previousIndex : previousIndices) {
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(previousIndex).alias(ALIAS));
+        }
+        request.addAliasAction(IndicesAliasesRequest.AliasActions.add().index(index).alias(ALIAS));
+        elasticsearchRestTemplate.execute(client -> client.indices().updateAliases(request, RequestOptions.DEFAULT));
+    }
+
+    private Set<String> aliasIndices() {
+        GetAliasesResponse response = elasticsearchRestTemplate.execute(client ->
+                client.indices().getAlias(new GetAliasesRequest(ALIAS), RequestOptions.DEFAULT));
+        return new HashSet<>(response.getAliases().keySet());
+    }
+
+    private boolean indexExists(String index) {
+        return elasticsearchRestTemplate.execute(client ->
+                client.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT));
+    }
+
+    /**
+     * 新索引的名称，在已经存在的最大版本上加一
+     * 包括别名没有指向的索引（之前中断的重建留下的），避免创建时重名
+     */
+    private String nextIndex() {
+        String[] indices = elasticsearchRestTemplate.execute(client ->
+                client.indices().get(new GetIndexRequest(ALIAS + "_v*"), RequestOptions.DEFAULT).getIndices());
+        int version = 0;
+        for (String existingIndex : indices) {
+            Matcher matcher = VERSIONED_INDEX.matcher(existingIndex);
+            if (matcher.matches()) {
+                version = Math.max(version, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return ALIAS + "_v" + (version + 1);
+    }
+
+    /**
+     * 新索引恢复为旧索引的副本数，没有旧索引时使用 1
+     */
+    private int replicas(Set<String> previousIndices) {
+        if (previousIndices.isEmpty()) {
+            return 1;
+        }
+        GetSettingsRequest request = new GetSettingsRequest().indices(previousIndices.toArray(new String[0]));
+        return elasticsearchRestTemplate.execute(client -> {
+            String replicas = client.indices().getSettings(request, RequestOptions.DEFAULT)
+                    .getSetting(previousIndices.iterator().next(), "index.number_of_replicas");
+            return replicas == null ? 1 : Integer.parseInt(replicas);
+        });
     }
 }
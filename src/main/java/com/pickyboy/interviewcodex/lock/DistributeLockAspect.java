@@ -8,12 +8,8 @@ import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
 import org.springframework.core.annotation.Order;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
@@ -85,8 +81,11 @@ public class DistributeLockAspect {
 
     private RedissonClient redissonClient;
 
-    public DistributeLockAspect(RedissonClient redissonClient) {
+    private SpelKeyResolver keyResolver;
+
+    public DistributeLockAspect(RedissonClient redissonClient, SpelKeyResolver keyResolver) {
         this.redissonClient = redissonClient;
+        this.keyResolver = keyResolver;
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(DistributeLockAspect.class);
@@ -103,30 +102,8 @@ public class DistributeLockAspect {
             if (DistributeLockConstant.NONE_KEY.equals(distributeLock.keyExpression())) {
                 throw new DistributeLockException("no lock key found...");
             }
-            // 解析Spel表达式,计算key
-            // region
-            SpelExpressionParser parser = new SpelExpressionParser();
-            Expression expression = parser.parseExpression(distributeLock.keyExpression());
-
-            EvaluationContext context = new StandardEvaluationContext();
-            // 获取参数值
-            Object[] args = pjp.getArgs();
-
-            // 获取运行时参数的名称
-            StandardReflectionParameterNameDiscoverer discoverer
-                    = new StandardReflectionParameterNameDiscoverer();
-            String[] parameterNames = discoverer.getParameterNames(method);
-
-            // 将参数绑定到context中
-            if (parameterNames != null) {
-                for (int i = 0; i < parameterNames.length; i++) {
-                    context.setVariable(parameterNames[i], args[i]);
-                }
-            }
-
-            // 解析表达式，获取结果
-            key = String.valueOf(expression.getValue(context));
-            // endregion
+            // 解析Spel表达式,计算key(表达式和参数名按方法缓存)
+            key = keyResolver.resolveKey(distributeLock.keyExpression(), method, pjp.getArgs());
         }
 
         String scene = distributeLock.scene();
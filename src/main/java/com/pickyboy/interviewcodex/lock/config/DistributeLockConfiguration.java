@@ -2,6 +2,7 @@ package com.pickyboy.interviewcodex.lock.config;
 
 
 import com.pickyboy.interviewcodex.lock.DistributeLockAspect;
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
 import org.redisson.api.RedissonClient;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -15,7 +16,7 @@ public class DistributeLockConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public DistributeLockAspect distributeLockAspect(RedissonClient redisson){
-        return new DistributeLockAspect(redisson);
+    public DistributeLockAspect distributeLockAspect(RedissonClient redisson, SpelKeyResolver keyResolver){
+        return new DistributeLockAspect(redisson, keyResolver);
     }
 }
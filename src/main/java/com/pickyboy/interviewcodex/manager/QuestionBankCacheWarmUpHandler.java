@@ -0,0 +1,40 @@
+package com.pickyboy.interviewcodex.manager;
+
+import com.pickyboy.interviewcodex.cache.CacheWarmUpHandler;
+import com.pickyboy.interviewcodex.service.QuestionBankService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 题库详情缓存预热
+ * 业务键为题库ID，同时预热基本信息和题目列表两个字段
+ *
+ * @author pickyboy
+ */
+@Component
+@Slf4j
+public class QuestionBankCacheWarmUpHandler implements CacheWarmUpHandler {
+
+    @Resource
+    private QuestionBankService questionBankService;
+
+    @Override
+    public String scene() {
+        return "bank_detail";
+    }
+
+    @Override
+    public void warmUp(List<String> keys) {
+        for (String key : keys) {
+            if (!NumberUtils.isDigits(key)) {
+                log.warn("Skip invalid bank_detail warm-up key: {}", key);
+                continue;
+            }
+            questionBankService.getCachedQuestionBankVO(Long.parseLong(key), true);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.pickyboy.interviewcodex.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.pickyboy.interviewcodex.cache.IdBloomFilterSource;
+import com.pickyboy.interviewcodex.mapper.QuestionBankMapper;
+import com.pickyboy.interviewcodex.model.entity.QuestionBank;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 题库 ID 布隆过滤器数据来源
+ *
+ * @author pickyboy
+ */
+@Component
+public class QuestionBankIdBloomFilterSource implements IdBloomFilterSource {
+
+    public static final String NAME = "question_bank";
+
+    @Resource
+    private QuestionBankMapper questionBankMapper;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public long count() {
+        return questionBankMapper.selectCount(null);
+    }
+
+    @Override
+    public List<Long> listIdsAfter(long afterId, int limit) {
+        return questionBankMapper.selectList(new LambdaQueryWrapper<QuestionBank>()
+                        .select(QuestionBank::getId)
+                        .gt(QuestionBank::getId, afterId)
+                        .orderByAsc(QuestionBank::getId)
+                        .last("limit " + limit))
+                .stream()
+                .map(QuestionBank::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,39 @@
+package com.pickyboy.interviewcodex.manager;
+
+import com.pickyboy.interviewcodex.cache.CacheWarmUpHandler;
+import com.pickyboy.interviewcodex.service.QuestionService;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 题目详情缓存预热
+ * 一批题目通过批量缓存方法一次查询
+ *
+ * @author pickyboy
+ */
+@Component
+public class QuestionCacheWarmUpHandler implements CacheWarmUpHandler {
+
+    @Resource
+    private QuestionService questionService;
+
+    @Override
+    public String scene() {
+        return "question_detail";
+    }
+
+    @Override
+    public void warmUp(List<String> keys) {
+        List<Long> ids = keys.stream()
+                .filter(NumberUtils::isDigits)
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            questionService.getCacheQuestionVOs(ids);
+        }
+    }
+}
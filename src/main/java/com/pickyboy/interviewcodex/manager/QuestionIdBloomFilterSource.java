@@ -0,0 +1,47 @@
+package com.pickyboy.interviewcodex.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.pickyboy.interviewcodex.cache.IdBloomFilterSource;
+import com.pickyboy.interviewcodex.mapper.QuestionMapper;
+import com.pickyboy.interviewcodex.model.entity.Question;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 题目 ID 布隆过滤器数据来源
+ *
+ * @author pickyboy
+ */
+@Component
+public class QuestionIdBloomFilterSource implements IdBloomFilterSource {
+
+    public static final String NAME = "question";
+
+    @Resource
+    private QuestionMapper questionMapper;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public long count() {
+        return questionMapper.selectCount(null);
+    }
+
+    @Override
+    public List<Long> listIdsAfter(long afterId, int limit) {
+        return questionMapper.selectList(new LambdaQueryWrapper<Question>()
+                        .select(Question::getId)
+                        .gt(Question::getId, afterId)
+                        .orderByAsc(Question::getId)
+                        .last("limit " + limit))
+                .stream()
+                .map(Question::getId)
+                .collect(Collectors.toList());
+    }
+}
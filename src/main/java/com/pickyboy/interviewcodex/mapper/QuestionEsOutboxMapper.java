@@ -0,0 +1,14 @@
+package com.pickyboy.interviewcodex.mapper;
+
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pickyboy.interviewcodex.model.entity.QuestionEsOutbox;
+
+/**
+* @author pickyboy
+* @description 针对表【question_es_outbox(题目 ES 同步发件箱)】的数据库操作Mapper
+* @Entity com.pickyboy.interviewcodex.model.entity.QuestionEsOutbox
+*/
+public interface QuestionEsOutboxMapper extends BaseMapper<QuestionEsOutbox> {
+
+}
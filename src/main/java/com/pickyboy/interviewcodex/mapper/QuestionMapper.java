@@ -3,9 +3,10 @@ package com.pickyboy.interviewcodex.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.pickyboy.interviewcodex.model.entity.Question;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
-import java.util.Date;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,8 +17,16 @@ import java.util.List;
 */
 public interface QuestionMapper extends BaseMapper<Question> {
 
-    @Select("SELECT * from question where updateTime >= #{fiveMinutesAgoDate}")
-    List<Question> listQuestionWithDelete(Date fiveMinutesAgoDate);
+    /**
+     * 按 id 查询题目，包括已逻辑删除的题目
+     *
+     * @param ids 题目 id
+     * @return
+     */
+    @Select("<script>SELECT * from question where id in "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<Question> listQuestionWithDeleteByIds(@Param("ids") Collection<Long> ids);
+
 }
 
 
@@ -14,6 +14,7 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.elasticsearch.core.suggest.Completion;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -66,6 +67,12 @@ public class QuestionEsDTO implements Serializable {
      */
     private Long userId;
 
+    /**
+     * 所属题库 id 列表，题库范围内的搜索直接在 ES 中过滤
+     */
+    @Field(type = FieldType.Keyword)
+    private List<Long> questionBankIds;
+
     /**
      * 创建时间
      */
@@ -95,14 +102,16 @@ public class QuestionEsDTO implements Serializable {
      * 对象转包装类
      *
      * @param question
+     * @param questionBankIds 所属题库 id 列表
      * @return
      */
-    public static QuestionEsDTO objToDto(Question question) {
+    public static QuestionEsDTO objToDto(Question question, List<Long> questionBankIds) {
         if (question == null) {
             return null;
         }
         QuestionEsDTO questionEsDTO = new QuestionEsDTO();
         BeanUtils.copyProperties(question, questionEsDTO);
+        questionEsDTO.setQuestionBankIds(questionBankIds == null ? new ArrayList<>() : questionBankIds);
         String tagsStr = question.getTags();
         if (StringUtils.isNotBlank(tagsStr)) {
             questionEsDTO.setTags(JSONUtil.toList(JSONUtil.parseArray(tagsStr), String.class));
@@ -1,11 +1,18 @@
 package com.pickyboy.interviewcodex.model.dto.question;
 
+import com.google.common.hash.Hashing;
 import com.pickyboy.interviewcodex.common.PageRequest;
+import com.pickyboy.interviewcodex.constant.CommonConstant;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 /**
  * 查询题目请求
@@ -61,5 +68,32 @@ public class QuestionQueryRequest extends PageRequest implements Serializable {
      */
     private Long userId;
 
+    /**
+     * 游标分页搜索的游标，取上一页返回的 nextCursor，第一页不传
+     */
+    private String cursor;
+
     private static final long serialVersionUID = 1L;
+
+    /**
+     * 搜索条件的规范化指纹，作为搜索结果缓存的键
+     * 只包含 ES 搜索用到的条件：搜索词去掉首尾空白、合并连续空白并转小写（分词器同样会忽略这些差异），
+     * 标签去重排序（标签之间是且的关系，顺序不影响结果），没有排序字段时排序方向不影响结果
+     *
+     * @return
+     */
+    public String searchFingerprint() {
+        String normalizedText = StringUtils.isBlank(searchText) ? ""
+                : StringUtils.normalizeSpace(searchText).toLowerCase();
+        // 空标签不参与查询，也不参与指纹
+        String normalizedTags = tags == null ? "" : String.join(",", tags.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        String sort = StringUtils.isBlank(getSortField()) ? "_score"
+                : getSortField() + ":" + (CommonConstant.SORT_ORDER_ASC.equals(getSortOrder()) ? "asc" : "desc");
+        String canonical = String.join("|", normalizedText, normalizedTags, sort,
+                getCurrent() + ":" + getPageSize(), String.valueOf(questionBankId), String.valueOf(userId),
+                String.valueOf(id), String.valueOf(notId));
+        return Hashing.murmur3_128().hashString(canonical, StandardCharsets.UTF_8).toString();
+    }
 }
\ No newline at end of file
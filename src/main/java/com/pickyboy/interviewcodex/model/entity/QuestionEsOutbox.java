@@ -0,0 +1,38 @@
+package com.pickyboy.interviewcodex.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 题目 ES 同步发件箱，由数据库触发器写入
+ *
+ * @author pickyboy
+ * @TableName question_es_outbox
+ */
+@TableName(value ="question_es_outbox")
+@Data
+public class QuestionEsOutbox {
+    /**
+     * id，自增，消费顺序即写入顺序
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 需要同步的题目 id
+     */
+    private Long questionId;
+
+    /**
+     * 变更类型：0-题目，1-题库关系
+     */
+    private Integer type;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+}
@@ -11,7 +11,9 @@ import com.pickyboy.interviewcodex.model.vo.QuestionBankQuestionVO;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 题库题目关联服务
@@ -75,6 +77,14 @@ public interface QuestionBankQuestionService extends IService<QuestionBankQuesti
      */
     void batchRemoveQuestionsFromBank(List<Long> questionIdList, Long questionBankId);
 
+    /**
+     * 批量查询题目所属的题库
+     *
+     * @param questionIdList 题目 id 列表
+     * @return 题目 id -> 题库 id 列表，不属于任何题库的题目不在结果中
+     */
+    Map<Long, List<Long>> getQuestionBankIdMap(Collection<Long> questionIdList);
+
     /**
      * 批量添加题目到题库（带缓存清除）
      * @param questionIdList
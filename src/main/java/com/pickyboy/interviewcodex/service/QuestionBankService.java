@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 
 import com.pickyboy.interviewcodex.model.dto.questionbank.QuestionBankQueryRequest;
+import com.pickyboy.interviewcodex.model.entity.Question;
 import com.pickyboy.interviewcodex.model.entity.QuestionBank;
 import com.pickyboy.interviewcodex.model.vo.QuestionBankVO;
 
@@ -60,6 +61,28 @@ public interface QuestionBankService extends IService<QuestionBank> {
      */
     QuestionBankVO getCachedQuestionBankVO(Long id, boolean needQueryQuestionList);
 
+    /**
+     * 获取缓存的题库基本信息（包含创建人），对应 bank_detail Hash 的 header 字段
+     * @param id 题库ID
+     * @return 题库详情VO，不包含题目列表
+     */
+    QuestionBankVO getCachedQuestionBankHeader(Long id);
+
+    /**
+     * 获取缓存的题库题目 id 列表（第一页），对应 bank_detail Hash 的 questions:page1 字段
+     * 只保存有序的题目 id 和总数，题目内容读取时从 question_detail 缓存批量获取
+     * @param id 题库ID
+     * @return 题目 id 分页
+     */
+    Page<Long> getCachedQuestionBankQuestionIdPage(Long id);
+
+    /**
+     * 新增题库，并登记到题库 ID 布隆过滤器
+     * @param questionBank 题库信息
+     * @return 是否新增成功
+     */
+    boolean addQuestionBankWithCache(QuestionBank questionBank);
+
     /**
      * 删除题库（带缓存清除）
      * @param id 题库ID
@@ -3,12 +3,14 @@ package com.pickyboy.interviewcodex.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.pickyboy.interviewcodex.common.CursorPage;
 import com.pickyboy.interviewcodex.model.dto.question.QuestionQueryRequest;
 import com.pickyboy.interviewcodex.model.entity.Question;
 import com.pickyboy.interviewcodex.model.vo.QuestionVO;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 题目服务
@@ -59,21 +61,52 @@ public interface QuestionService extends IService<Question> {
      */
     Page<Question> listQuestionByPage(QuestionQueryRequest questionQueryRequest) ;
 
+    /**
+     * 分页获取题目 id 列表，条件和顺序与 listQuestionByPage 一致
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    Page<Long> listQuestionIdByPage(QuestionQueryRequest questionQueryRequest);
+
 
     /**
-     * 从 ES 查询题目
+     * 从 ES 查询题目，返回的题目只有 id，通过 getQuestionVOPage 获取完整信息，前几页的结果 id 会被缓存
      *
      * @param questionQueryRequest
      * @return
      */
     Page<Question> searchFromEs(QuestionQueryRequest questionQueryRequest);
 
+    /**
+     * 缓存的 ES 搜索结果，只保存题目 id 和总数，按搜索条件的指纹缓存，同步任务更新索引后整体失效
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    Page<Long> getCachedSearchIdPage(QuestionQueryRequest questionQueryRequest);
+
+    /**
+     * 从 ES 游标分页搜索题目，适合深度翻页和导出
+     *
+     * @param questionQueryRequest 查询条件，cursor 为上一页返回的 nextCursor
+     * @return
+     */
+    CursorPage<QuestionVO> searchByCursor(QuestionQueryRequest questionQueryRequest);
+
     /**
      * 批量删除题目
      * @param questionIdList
      */
     void batchDeleteQuestions(List<Long> questionIdList);
 
+    /**
+     * 新增题目，并登记到题目 ID 布隆过滤器
+     * @param question 题目信息
+     * @return 是否新增成功
+     */
+    boolean addQuestionWithCache(Question question);
+
     /**
      * 删除题目（带缓存清除）
      * @param id 题目ID
@@ -109,4 +142,11 @@ public interface QuestionService extends IService<Question> {
      * @return 题目详情VO
      */
     QuestionVO getCacheQuestionVO(long id);
+
+    /**
+     * 批量获取缓存的题目详情
+     * @param ids 题目ID列表
+     * @return 题目ID => 题目详情VO，按传入顺序排列，不存在的题目不返回
+     */
+    Map<Long, QuestionVO> getCacheQuestionVOs(List<Long> ids);
 }
@@ -305,6 +305,19 @@ public class QuestionBankQuestionServiceImpl extends ServiceImpl<QuestionBankQue
         ThrowUtils.throwIf(!success, ErrorCode.OPERATION_ERROR,"移除失败");
     }
 
+    @Override
+    public Map<Long, List<Long>> getQuestionBankIdMap(Collection<Long> questionIdList) {
+        if (CollUtil.isEmpty(questionIdList)) {
+            return new HashMap<>();
+        }
+        return this.list(new LambdaQueryWrapper<QuestionBankQuestion>()
+                        .select(QuestionBankQuestion::getQuestionId, QuestionBankQuestion::getQuestionBankId)
+                        .in(QuestionBankQuestion::getQuestionId, questionIdList))
+                .stream()
+                .collect(Collectors.groupingBy(QuestionBankQuestion::getQuestionId,
+                        Collectors.mapping(QuestionBankQuestion::getQuestionBankId, Collectors.toList())));
+    }
+
     @Override
     public void batchAddQuestionsToBankWithCache(List<Long> questionIdList, Long questionBankId, User loginUser) {
         // 调用原有方法
@@ -322,12 +335,12 @@ public class QuestionBankQuestionServiceImpl extends ServiceImpl<QuestionBankQue
     }
 
     /**
-     * 清除题库缓存（两种key格式）
+     * 清除题库缓存（题库的所有变体在同一个 Hash 中，删除一个键即可）
      * @param questionBankId 题库ID
      */
     private void clearQuestionBankCache(Long questionBankId) {
         if (questionBankId != null) {
-            cacheUtils.evictCacheWithStatus("bank_detail", questionBankId, Arrays.asList("true", "false"));
+            cacheUtils.evictCache("bank_detail", questionBankId);
         }
     }
 
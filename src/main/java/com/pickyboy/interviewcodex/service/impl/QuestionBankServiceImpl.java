@@ -7,10 +7,12 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.pickyboy.interviewcodex.cache.AutoCache;
 import com.pickyboy.interviewcodex.cache.CacheEvict;
 import com.pickyboy.interviewcodex.cache.CacheUtils;
+import com.pickyboy.interviewcodex.cache.IdBloomFilterManager;
 import com.pickyboy.interviewcodex.common.ErrorCode;
 import com.pickyboy.interviewcodex.constant.CommonConstant;
 import com.pickyboy.interviewcodex.exception.BusinessException;
 import com.pickyboy.interviewcodex.exception.ThrowUtils;
+import com.pickyboy.interviewcodex.manager.QuestionBankIdBloomFilterSource;
 import com.pickyboy.interviewcodex.mapper.QuestionBankMapper;
 
 import com.pickyboy.interviewcodex.model.dto.question.QuestionQueryRequest;
@@ -19,6 +21,7 @@ import com.pickyboy.interviewcodex.model.entity.Question;
 import com.pickyboy.interviewcodex.model.entity.QuestionBank;
 import com.pickyboy.interviewcodex.model.entity.User;
 import com.pickyboy.interviewcodex.model.vo.QuestionBankVO;
+import com.pickyboy.interviewcodex.model.vo.QuestionVO;
 import com.pickyboy.interviewcodex.model.vo.UserVO;
 import com.pickyboy.interviewcodex.service.QuestionBankService;
 import com.pickyboy.interviewcodex.service.QuestionService;
@@ -27,6 +30,8 @@ import com.pickyboy.interviewcodex.utils.SqlUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.aop.framework.AopContext;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
@@ -34,6 +39,7 @@ import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -57,6 +63,9 @@ public class QuestionBankServiceImpl
     @Resource
     private CacheUtils cacheUtils;
 
+    @Resource
+    private IdBloomFilterManager idBloomFilterManager;
+
     @Override
     public void validQuestionBank(QuestionBank questionBank, boolean add) {
         if (questionBank == null) {
@@ -159,47 +168,106 @@ public class QuestionBankServiceImpl
     }
 
     @Override
-    // 注解只能接受编译时常量，还是只能硬编码场景，不能通过枚举的get方法直接获得，不过枚举可以作为参考
-    @AutoCache(scene = "bank_detail", keyExpression = "#id + '_' + #needList", randomExpireRange = 120)
     public QuestionBankVO getCachedQuestionBankVO(Long id, boolean needList) {
+        // 题库基本信息和题目列表是同一个 Hash 的两个字段，分别缓存，通过代理调用才能经过缓存切面
+        QuestionBankService proxy = (QuestionBankService) AopContext.currentProxy();
+        QuestionBankVO header = proxy.getCachedQuestionBankHeader(id);
+        if (header == null || !needList) {
+            return header;
+        }
+        // 缓存中的对象可能被本地缓存共享，组装时复制一份
+        QuestionBankVO questionBankVO = new QuestionBankVO();
+        BeanUtils.copyProperties(header, questionBankVO);
+        questionBankVO.setQuestionPage(hydrateQuestionPage(proxy.getCachedQuestionBankQuestionIdPage(id)));
+        return questionBankVO;
+    }
+
+    /**
+     * 按 id 列表的顺序从 question_detail 缓存批量获取题目，已删除的题目直接跳过
+     *
+     * @param idPage 题目 id 分页
+     * @return 题目分页
+     */
+    private Page<Question> hydrateQuestionPage(Page<Long> idPage) {
+        if (idPage == null) {
+            return null;
+        }
+        Page<Question> questionPage = new Page<>(idPage.getCurrent(), idPage.getSize(), idPage.getTotal());
+        List<Long> ids = idPage.getRecords();
+        if (CollUtil.isEmpty(ids)) {
+            return questionPage;
+        }
+        Map<Long, QuestionVO> questionVOMap = questionService.getCacheQuestionVOs(ids);
+        List<Question> questionList = ids.stream()
+                .map(questionVOMap::get)
+                .filter(Objects::nonNull)
+                .map(QuestionVO::voToObj)
+                .collect(Collectors.toList());
+        questionPage.setRecords(questionList);
+        return questionPage;
+    }
+
+    @Override
+    // 注解只能接受编译时常量，还是只能硬编码场景，不能通过枚举的get方法直接获得，不过枚举可以作为参考
+    // 题库的所有变体保存在 bank_detail::{id} 这一个 Hash 中，题库变更时删除整个键
+    @AutoCache(scene = "bank_detail", keyExpression = "#id", hashField = "'header'", expireTime = 3600,
+            randomExpireRange = 300, refreshAhead = 1800, warmUp = true, bloomFilter = "question_bank",
+            asyncWrite = true, adaptiveTtl = true)
+    public QuestionBankVO getCachedQuestionBankHeader(Long id) {
         QuestionBank questionBank = getById(id);
         // 如果题库不存在，返回null，让缓存穿透防护机制处理
         if (questionBank == null) {
             return null;
         }
 
-        // 2. 基础对象转换
+        // 基础对象转换
         QuestionBankVO questionBankVO = QuestionBankVO.objToVo(questionBank);
 
-        // 3. 关联用户信息
+        // 关联用户信息
         User user = userService.getById(questionBank.getUserId());
         questionBankVO.setUser(userService.getUserVO(user));
+        return questionBankVO;
+    }
 
-        // 4. 按需查询题目列表
-        if (needList) {
-            QuestionQueryRequest innerQuestionQueryRequest = new QuestionQueryRequest();
-            innerQuestionQueryRequest.setQuestionBankId(id);
-            Page<Question> questionPage = questionService.listQuestionByPage(innerQuestionQueryRequest);
-            questionBankVO.setQuestionPage(questionPage);
+    @Override
+    // 只缓存有序的题目 id，题目修改只需要删除 question_detail；
+    // 仍然登记页内每道题目的 question:{id} 标签，题目删除时按标签删除所在题库的 Hash，保证总数正确
+    @AutoCache(scene = "bank_detail", keyExpression = "#id", hashField = "'questions:page1'", expireTime = 3600,
+            randomExpireRange = 300, refreshAhead = 1800, bloomFilter = "question_bank", asyncWrite = true,
+            adaptiveTtl = true, tags = "#result == null ? null : #result.records.![ 'question:' + #this ]")
+    public Page<Long> getCachedQuestionBankQuestionIdPage(Long id) {
+        QuestionBank questionBank = getById(id);
+        if (questionBank == null) {
+            return null;
         }
+        QuestionQueryRequest innerQuestionQueryRequest = new QuestionQueryRequest();
+        innerQuestionQueryRequest.setQuestionBankId(id);
+        return questionService.listQuestionIdByPage(innerQuestionQueryRequest);
+    }
 
-        return questionBankVO;
+    @Override
+    public boolean addQuestionBankWithCache(QuestionBank questionBank) {
+        boolean result = this.save(questionBank);
+        if (result) {
+            idBloomFilterManager.add(QuestionBankIdBloomFilterSource.NAME, questionBank.getId());
+        }
+        return result;
     }
 
     @Override
-    @CacheEvict(scene = "bank_detail", keyExpression = "#id", statuses = {"true", "false"})
+    @CacheEvict(scene = "bank_detail", keyExpression = "#id")
     public boolean deleteQuestionBankWithCache(Long id) {
         return this.removeById(id);
     }
 
     @Override
-    @CacheEvict(scene = "bank_detail", keyExpression = "#questionBank.id", statuses = {"true", "false"})
+    @CacheEvict(scene = "bank_detail", keyExpression = "#questionBank.id")
     public boolean updateQuestionBankWithCache(QuestionBank questionBank) {
         return this.updateById(questionBank);
     }
 
     @Override
-    @CacheEvict(scene = "bank_detail", keyExpression = "#questionBankIdList", isBatch = true, statuses = {"true", "false"})
+    @CacheEvict(scene = "bank_detail", keyExpression = "#questionBankIdList", isBatch = true)
     public void batchDeleteQuestionBanksWithCache(List<Long> questionBankIdList) {
         // 批量删除题库
         boolean result = this.removeBatchByIds(questionBankIdList);
@@ -1,6 +1,8 @@
 package com.pickyboy.interviewcodex.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
 import com.alibaba.csp.sentinel.annotation.SentinelResource;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeException;
@@ -11,10 +13,13 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.pickyboy.interviewcodex.cache.AutoCache;
 import com.pickyboy.interviewcodex.cache.CacheEvict;
+import com.pickyboy.interviewcodex.cache.IdBloomFilterManager;
+import com.pickyboy.interviewcodex.common.CursorPage;
 import com.pickyboy.interviewcodex.common.ErrorCode;
 import com.pickyboy.interviewcodex.constant.CommonConstant;
 import com.pickyboy.interviewcodex.exception.BusinessException;
 import com.pickyboy.interviewcodex.exception.ThrowUtils;
+import com.pickyboy.interviewcodex.manager.QuestionIdBloomFilterSource;
 import com.pickyboy.interviewcodex.mapper.QuestionMapper;
 import com.pickyboy.interviewcodex.model.dto.question.QuestionEsDTO;
 import com.pickyboy.interviewcodex.model.dto.question.QuestionQueryRequest;
@@ -38,10 +43,12 @@ import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.search.suggest.completion.CompletionSuggestionBuilder;
+import org.springframework.aop.framework.AopContext;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.data.elasticsearch.core.suggest.response.CompletionSuggestion;
@@ -51,6 +58,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -63,12 +72,27 @@ import java.util.stream.Collectors;
 @Slf4j
 public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> implements QuestionService {
 
+    /**
+     * ES 查询只返回 id，不传输 content、answer 等大字段
+     */
+    private static final FetchSourceFilter ID_ONLY_SOURCE = new FetchSourceFilter(new String[]{"id"}, null);
+
+    /**
+     * 只缓存前几页，更深的翻页很少重复，直接查询 ES
+     */
+    private static final int MAX_CACHED_SEARCH_PAGE = 5;
+
+    private static final int MAX_CACHED_SEARCH_PAGE_SIZE = 50;
+
     @Resource
     private UserService userService;
 
     @Resource
     private QuestionBankQuestionService questionBankQuestionService;
 
+    @Resource
+    private IdBloomFilterManager idBloomFilterManager;
+
     @Resource
     private ElasticsearchRestTemplate elasticsearchRestTemplate;
 
@@ -191,28 +215,15 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
         if (CollUtil.isEmpty(questionList)) {
             return questionVOPage;
         }
-        // 对象列表 => 封装对象列表
-        List<QuestionVO> questionVOList = questionList.stream().map(question -> {
-            return QuestionVO.objToVo(question);
-        }).collect(Collectors.toList());
-
-        //  可以根据需要为封装对象补充值，不需要的内容可以删除
-        // region 可选
-        // 1. 关联查询用户信息
-        Set<Long> userIdSet = questionList.stream().map(Question::getUserId).collect(Collectors.toSet());
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
-
-        // 填充信息
-        questionVOList.forEach(questionVO -> {
-            Long userId = questionVO.getUserId();
-            User user = null;
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            questionVO.setUser(userService.getUserVO(user));
-        });
-        // endregion
+        // 通过题目缓存批量获取封装对象,一页只需要一次 Redis 往返
+        List<Long> questionIdList = questionList.stream().map(Question::getId).collect(Collectors.toList());
+        QuestionService proxy = (QuestionService) AopContext.currentProxy();
+        Map<Long, QuestionVO> questionVOMap = proxy.getCacheQuestionVOs(questionIdList);
+        // ES 中可能残留已删除的题目,这里直接过滤
+        List<QuestionVO> questionVOList = questionIdList.stream()
+                .map(questionVOMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
 
         questionVOPage.setRecords(questionVOList);
         return questionVOPage;
@@ -228,32 +239,49 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
         long current = questionQueryRequest.getCurrent();
         long size = questionQueryRequest.getPageSize();
 
+        QueryWrapper<Question> queryWrapper = this.getPageQueryWrapper(questionQueryRequest);
+        // 查询数据库
+        Page<Question> questionPage = this.page(new Page<>(current, size),
+                queryWrapper);
+        return questionPage;
+    }
+
+    @Override
+    public Page<Long> listQuestionIdByPage(QuestionQueryRequest questionQueryRequest) {
+        long current = questionQueryRequest.getCurrent();
+        long size = questionQueryRequest.getPageSize();
+
+        QueryWrapper<Question> queryWrapper = this.getPageQueryWrapper(questionQueryRequest);
+        // 只查询 id 列，排序和筛选条件与 listQuestionByPage 一致
+        queryWrapper.select("id");
+        Page<Question> questionPage = this.page(new Page<>(current, size), queryWrapper);
+        Page<Long> idPage = new Page<>(current, size, questionPage.getTotal());
+        idPage.setRecords(questionPage.getRecords().stream().map(Question::getId).collect(Collectors.toList()));
+        return idPage;
+    }
+
+    /**
+     * 分页查询条件，在 getQueryWrapper 的基础上支持按题库筛选
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    private QueryWrapper<Question> getPageQueryWrapper(QuestionQueryRequest questionQueryRequest) {
         QueryWrapper<Question> queryWrapper = this.getQueryWrapper(questionQueryRequest);
 
-        // 根据题库id查询题目列表接口
+        // 根据题库id查询题目列表接口，子查询由数据库完成，不把题库的全部题目 id 拼进 SQL
         Long questionBankId = questionQueryRequest.getQuestionBankId();
         if (questionBankId != null) {
-            List<Long> questionIds = questionBankQuestionService
-                    .listObjs(new LambdaQueryWrapper<QuestionBankQuestion>()
-                            .select(QuestionBankQuestion::getQuestionId)
-                            .eq(QuestionBankQuestion::getQuestionBankId, questionBankId),obj->Long.parseLong(obj.toString()));
-            if(CollUtil.isEmpty(questionIds)){
-                return new Page<>(current,size);
-            }
-
-            if(CollUtil.isNotEmpty(questionIds)) {
-                queryWrapper.in("id", questionIds);
-            }
+            queryWrapper.inSql("id", "select questionId from question_bank_question where questionBankId = "
+                    + questionBankId);
         }
-        // 查询数据库
-        Page<Question> questionPage = this.page(new Page<>(current, size),
-                queryWrapper);
-        return questionPage;
+        return queryWrapper;
     }
 
 
     @Override
-    @AutoCache(scene = "question_detail", keyExpression = "#id", randomExpireRange = 60)
+    @AutoCache(scene = "question_detail", keyExpression = "#id", randomExpireRange = 60, refreshAhead = 240, warmUp = true,
+            bloomFilter = "question", asyncWrite = true, adaptiveTtl = true)
     public QuestionVO getCacheQuestionVO(long id) {
         // 1. 核心数据查询
         Question question = this.getById(id);
@@ -270,21 +298,56 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
         return questionVO;
     }
 
+    @Override
+    @AutoCache(scene = "question_detail", keyExpression = "#ids", isBatch = true, randomExpireRange = 60, refreshAhead = 240,
+            bloomFilter = "question", asyncWrite = true, adaptiveTtl = true)
+    public Map<Long, QuestionVO> getCacheQuestionVOs(List<Long> ids) {
+        // 切面只会传入缓存未命中的ID
+        List<Question> questionList = this.listByIds(ids);
+        if (CollUtil.isEmpty(questionList)) {
+            return new HashMap<>();
+        }
+
+        // 批量关联查询用户信息
+        Set<Long> userIdSet = questionList.stream().map(Question::getUserId).collect(Collectors.toSet());
+        Map<Long, User> userIdUserMap = userService.listByIds(userIdSet).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+
+        Map<Long, QuestionVO> questionVOMap = new HashMap<>();
+        for (Question question : questionList) {
+            QuestionVO questionVO = QuestionVO.objToVo(question);
+            questionVO.setUser(userService.getUserVO(userIdUserMap.get(question.getUserId())));
+            questionVOMap.put(question.getId(), questionVO);
+        }
+        return questionVOMap;
+    }
+
     // region 带清理缓存的方法
     @Override
-    @CacheEvict(scene = "question_detail", keyExpression = "#id")
+    public boolean addQuestionWithCache(Question question) {
+        boolean result = this.save(question);
+        if (result) {
+            idBloomFilterManager.add(QuestionIdBloomFilterSource.NAME, question.getId());
+        }
+        return result;
+    }
+
+    @Override
+    @CacheEvict(scene = "question_detail", keyExpression = "#id", tags = "'question:' + #id")
     public boolean deleteQuestionWithCache(Long id) {
         return this.removeById(id);
     }
 
     @Override
+    // 题库只缓存题目 id，修改题目只需要删除题目自身的缓存
     @CacheEvict(scene = "question_detail", keyExpression = "#question.id")
     public boolean updateQuestionWithCache(Question question) {
         return this.updateById(question);
     }
 
     @Override
-    @CacheEvict(scene = "question_detail", keyExpression = "#questionIdList", isBatch = true)
+    @CacheEvict(scene = "question_detail", keyExpression = "#questionIdList", isBatch = true,
+            tags = "#questionIdList.![ 'question:' + #this ]")
     public void batchDeleteQuestionsWithCache(List<Long> questionIdList) {
         this.batchDeleteQuestions(questionIdList);
     }
@@ -298,7 +361,8 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(scene = "question_detail", keyExpression = "#questionIdList", isBatch = true)
+    @CacheEvict(scene = "question_detail", keyExpression = "#questionIdList", isBatch = true,
+            tags = "#questionIdList.![ 'question:' + #this ]")
     public void batchDeleteQuestions(List<Long> questionIdList) {
         ThrowUtils.throwIf(CollUtil.isEmpty(questionIdList), ErrorCode.PARAMS_ERROR,"题目列表不能为空");
         boolean result = this.removeBatchByIds(questionIdList);
@@ -316,7 +380,9 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
      * @return
      */
     private Page<Question> searchFromDb(QuestionQueryRequest questionQueryRequest) {
-        QueryWrapper<Question> wrapper = getQueryWrapper(questionQueryRequest);
+        QueryWrapper<Question> wrapper = getPageQueryWrapper(questionQueryRequest);
+        // 和 ES 查询一样只取 id
+        wrapper.select("id");
         Page<Question> page = page(new Page<>(questionQueryRequest.getCurrent(), questionQueryRequest.getPageSize()),
                 wrapper);
         return page;
@@ -335,20 +401,121 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
     )
     public Page<Question> searchFromEs(QuestionQueryRequest questionQueryRequest) {
 
-        Long id = questionQueryRequest.getId();
-        Long notId = questionQueryRequest.getNotId();
         String searchText = questionQueryRequest.getSearchText();
         if (searchText.equals("error")) {
             throw new BusinessException(123, "测试Es错误降级");
         }
-        Long questionBankId = questionQueryRequest.getQuestionBankId();
-        List<String> tagList = questionQueryRequest.getTags();
-        Long userId = questionQueryRequest.getUserId();
+        // 前几页按搜索条件缓存结果 id，ES 异常时抛出，不写缓存，由 Sentinel 降级，降级结果也不会被缓存
+        QuestionService proxy = (QuestionService) AopContext.currentProxy();
+        Page<Long> idPage = questionQueryRequest.getCurrent() <= MAX_CACHED_SEARCH_PAGE
+                && questionQueryRequest.getPageSize() <= MAX_CACHED_SEARCH_PAGE_SIZE
+                ? proxy.getCachedSearchIdPage(questionQueryRequest) : searchIdPageFromEs(questionQueryRequest);
+
+        Page<Question> page = new Page<>(idPage.getCurrent(), idPage.getSize(), idPage.getTotal());
+        // 构造返回结果，只有 id 有值
+        page.setRecords(idPage.getRecords().stream()
+                .map(questionId -> {
+                    Question question = new Question();
+                    question.setId(questionId);
+                    return question;
+                })
+                .collect(Collectors.toList()));
+        return page;
+
+    }
+
+    @Override
+    // 相同的热门搜索在缓存有效期内不再查询 ES，单飞保护保证同一个指纹同时只有一个请求回源
+    @AutoCache(scene = "question_search", keyExpression = "#questionQueryRequest.searchFingerprint()", expireTime = 60,
+            randomExpireRange = 10, tags = "'question_search'")
+    public Page<Long> getCachedSearchIdPage(QuestionQueryRequest questionQueryRequest) {
+        return searchIdPageFromEs(questionQueryRequest);
+    }
+
+    /**
+     * 从 ES 查询一页题目 id
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    private Page<Long> searchIdPageFromEs(QuestionQueryRequest questionQueryRequest) {
         // es 起始页为 0
         long current = questionQueryRequest.getCurrent() - 1;
         long pageSize = questionQueryRequest.getPageSize();
-        String sortField = questionQueryRequest.getSortField();
-        String sortOrder = questionQueryRequest.getSortOrder();
+        // 分页
+        PageRequest pageRequest = PageRequest.of((int) current, (int) pageSize);
+
+        // 构造查询，ES 只返回 id，题目内容由 getQuestionVOPage 通过题目缓存批量获取
+        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder().withQuery(buildEsQuery(questionQueryRequest))
+                .withPageable(pageRequest).withSorts(buildEsSort(questionQueryRequest))
+                .withSourceFilter(ID_ONLY_SOURCE).build();
+        // 查询
+        SearchHits<QuestionEsDTO> searchHits = elasticsearchRestTemplate.search(searchQuery, QuestionEsDTO.class);
+
+        Page<Long> idPage = new Page<>(questionQueryRequest.getCurrent(), pageSize, searchHits.getTotalHits());
+        idPage.setRecords(searchHits.getSearchHits().stream()
+                .map(searchHit -> searchHit.getContent().getId())
+                .collect(Collectors.toList()));
+        return idPage;
+    }
+
+    /**
+     * 游标分页搜索，使用 search_after 从上一页最后一条的排序值继续，翻到多深每页的开销都一样，
+     * 也不受 max_result_window 限制。排序最后加上 id，排序值相同的题目也有确定的先后顺序
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    @Override
+    public CursorPage<QuestionVO> searchByCursor(QuestionQueryRequest questionQueryRequest) {
+        int pageSize = questionQueryRequest.getPageSize();
+        NativeSearchQueryBuilder queryBuilder = new NativeSearchQueryBuilder()
+                .withQuery(buildEsQuery(questionQueryRequest))
+                .withSorts(buildEsSort(questionQueryRequest), SortBuilders.fieldSort("id").order(SortOrder.ASC))
+                .withPageable(PageRequest.of(0, pageSize))
+                .withSourceFilter(ID_ONLY_SOURCE)
+                // 游标翻页不需要总数
+                .withTrackTotalHits(false);
+        if (StringUtils.isNotBlank(questionQueryRequest.getCursor())) {
+            queryBuilder.withSearchAfter(decodeCursor(questionQueryRequest.getCursor()));
+        }
+        SearchHits<QuestionEsDTO> searchHits = elasticsearchRestTemplate.search(queryBuilder.build(), QuestionEsDTO.class);
+
+        CursorPage<QuestionVO> cursorPage = new CursorPage<>();
+        List<SearchHit<QuestionEsDTO>> searchHitList = searchHits.getSearchHits();
+        if (searchHitList.isEmpty()) {
+            return cursorPage;
+        }
+        // 通过题目缓存批量获取封装对象
+        List<Long> questionIdList = searchHitList.stream()
+                .map(searchHit -> searchHit.getContent().getId())
+                .collect(Collectors.toList());
+        QuestionService proxy = (QuestionService) AopContext.currentProxy();
+        Map<Long, QuestionVO> questionVOMap = proxy.getCacheQuestionVOs(questionIdList);
+        cursorPage.setRecords(questionIdList.stream()
+                .map(questionVOMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        // 不满一页说明已经到底
+        if (searchHitList.size() == pageSize) {
+            cursorPage.setNextCursor(encodeCursor(searchHitList.get(searchHitList.size() - 1).getSortValues()));
+        }
+        return cursorPage;
+    }
+
+    /**
+     * ES 查询条件
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    private BoolQueryBuilder buildEsQuery(QuestionQueryRequest questionQueryRequest) {
+        Long id = questionQueryRequest.getId();
+        Long notId = questionQueryRequest.getNotId();
+        String searchText = questionQueryRequest.getSearchText();
+        Long questionBankId = questionQueryRequest.getQuestionBankId();
+        List<String> tagList = questionQueryRequest.getTags();
+        Long userId = questionQueryRequest.getUserId();
         // 构造查询条件
         BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
         // 过滤
@@ -363,11 +530,14 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
             boolQueryBuilder.filter(QueryBuilders.termQuery("userId", userId));
         }
         if (questionBankId != null) {
-            boolQueryBuilder.filter(QueryBuilders.termQuery("questionBankId", questionBankId));
+            boolQueryBuilder.filter(QueryBuilders.termQuery("questionBankIds", questionBankId));
         }
         // 必须包含所有标签
         if (CollUtil.isNotEmpty(tagList)) {
             for (String tag : tagList) {
+                if (tag == null) {
+                    continue;
+                }
                 boolQueryBuilder.filter(QueryBuilders.termQuery("tags", tag));
             }
         }
@@ -380,35 +550,52 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
             // 满足一个即可
             boolQueryBuilder.minimumShouldMatch(1);
         }
+        return boolQueryBuilder;
+    }
 
-        // 排序
+    /**
+     * ES 排序，默认按相关度
+     *
+     * @param questionQueryRequest
+     * @return
+     */
+    private SortBuilder<?> buildEsSort(QuestionQueryRequest questionQueryRequest) {
+        String sortField = questionQueryRequest.getSortField();
+        String sortOrder = questionQueryRequest.getSortOrder();
         SortBuilder<?> sortBuilder = SortBuilders.scoreSort();
         if (StringUtils.isNotBlank(sortField)) {
             sortBuilder = SortBuilders.fieldSort(sortField);
             sortBuilder.order(CommonConstant.SORT_ORDER_ASC.equals(sortOrder) ? SortOrder.ASC : SortOrder.DESC);
         }
-        // 分页
-        PageRequest pageRequest = PageRequest.of((int) current, (int) pageSize);
+        return sortBuilder;
+    }
 
-        // 构造查询
-        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder().withQuery(boolQueryBuilder)
-                .withPageable(pageRequest).withSorts(sortBuilder).build();
-        // 查询
-        SearchHits<QuestionEsDTO> searchHits = elasticsearchRestTemplate.search(searchQuery, QuestionEsDTO.class);
+    /**
+     * 游标是最后一条的排序值（JSON 数组）的 Base64，对调用方不透明
+     */
+    private static String encodeCursor(List<Object> sortValues) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(JSONUtil.toJsonStr(sortValues).getBytes(StandardCharsets.UTF_8));
+    }
 
-        Page<Question> page = new Page<>();
-        page.setTotal(searchHits.getTotalHits());
-        List<Question> resourceList = new ArrayList<>();
-        // 构造返回结果
-        if (searchHits.hasSearchHits()) {
-            List<SearchHit<QuestionEsDTO>> searchHitList = searchHits.getSearchHits();
-            searchHitList.forEach(searchHit -> {
-                resourceList.add(QuestionEsDTO.dtoToObj(searchHit.getContent()));
-            });
+    private static List<Object> decodeCursor(String cursor) {
+        try {
+            JSONArray jsonArray = JSONUtil.parseArray(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            List<Object> sortValues = new ArrayList<>(jsonArray.size());
+            for (Object value : jsonArray) {
+                // JSON 解析出的数字类型不固定，统一成 ES 能直接比较的 long 和 double
+                if (value instanceof BigDecimal || value instanceof Double || value instanceof Float) {
+                    sortValues.add(((Number) value).doubleValue());
+                } else if (value instanceof Number) {
+                    sortValues.add(((Number) value).longValue());
+                } else {
+                    sortValues.add(value);
+                }
+            }
+            return sortValues;
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
         }
-        page.setRecords(resourceList);
-        return page;
-
     }
 
     /**
@@ -503,18 +690,24 @@ public class QuestionServiceImpl extends ServiceImpl<QuestionMapper, Question> i
         NativeSearchQuery searchQuery = new NativeSearchQueryBuilder()
                 .withQuery(boolQueryBuilder)
                 .withPageable(org.springframework.data.domain.PageRequest.of(0, 10)) // 获取前10条推荐
+                .withSourceFilter(ID_ONLY_SOURCE) // 只取 id，题目内容从题目缓存获取
                 .build();
 
         // 5. 执行查询
         SearchHits<QuestionEsDTO> searchHits = elasticsearchRestTemplate.search(searchQuery, QuestionEsDTO.class);
 
-        // 6. 处理并返回结果
-        // 此处为了简化，直接返回了 Question 对象，您可以按需转换为 QuestionVO
-        return searchHits.getSearchHits().stream()
-                .map(SearchHit::getContent)
-                .map(QuestionEsDTO::dtoToObj)
-                .map(
-                        QuestionVO::objToVo)
+        // 6. 通过题目缓存批量获取封装对象，按相似度顺序返回
+        List<Long> questionIdList = searchHits.getSearchHits().stream()
+                .map(searchHit -> searchHit.getContent().getId())
+                .collect(Collectors.toList());
+        if (questionIdList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        QuestionService proxy = (QuestionService) AopContext.currentProxy();
+        Map<Long, QuestionVO> questionVOMap = proxy.getCacheQuestionVOs(questionIdList);
+        return questionIdList.stream()
+                .map(questionVOMap::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -0,0 +1,139 @@
+package com.pickyboy.interviewcodex.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 注解 SpEL 键表达式解析
+ * <p>
+ * 缓存、缓存失效、分布式锁切面共用。每个方法上的表达式只解析一次，参数名只获取一次；
+ * 形如 {@code #id} 的表达式直接按下标取参数，不经过 SpEL。
+ * 需要根据返回值计算的表达式（如缓存标签）可以通过 {@code #result} 引用返回值。
+ *
+ * @author pickyboy
+ */
+@Component
+public class SpelKeyResolver {
+
+    /**
+     * 只引用单个参数的表达式，例如 #id、#questionIdList
+     */
+    private static final Pattern SIMPLE_VARIABLE = Pattern.compile("^#[A-Za-z_$][A-Za-z0-9_$]*$");
+
+    private final SpelExpressionParser parser;
+
+    private final StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
+
+    /**
+     * 方法 -> (表达式 -> 解析结果)
+     */
+    private final Map<Method, Map<String, KeyExpression>> cache = new ConcurrentHashMap<>();
+
+    public SpelKeyResolver(@Value("${spel.compiler-mode:immediate}") String compilerMode) {
+        SpelCompilerMode mode = SpelCompilerMode.valueOf(compilerMode.toUpperCase());
+        this.parser = new SpelExpressionParser(new SpelParserConfiguration(mode, SpelKeyResolver.class.getClassLoader()));
+    }
+
+    /**
+     * 计算表达式的值
+     *
+     * @param keyExpression SpEL 表达式
+     * @param method 被拦截的方法
+     * @param args 方法参数
+     * @return
+     */
+    public Object resolve(String keyExpression, Method method, Object[] args) {
+        return resolve(keyExpression, method, args, null);
+    }
+
+    /**
+     * 计算表达式的值，返回值绑定为 #result
+     *
+     * @param keyExpression SpEL 表达式
+     * @param method 被拦截的方法
+     * @param args 方法参数
+     * @param result 方法返回值
+     * @return
+     */
+    public Object resolve(String keyExpression, Method method, Object[] args, Object result) {
+        KeyExpression expression = cache
+                .computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(keyExpression, e -> compile(e, method));
+        return expression.getValue(args, result);
+    }
+
+    /**
+     * 计算表达式的值并转换为字符串
+     *
+     * @param keyExpression SpEL 表达式
+     * @param method 被拦截的方法
+     * @param args 方法参数
+     * @return
+     */
+    public String resolveKey(String keyExpression, Method method, Object[] args) {
+        return String.valueOf(resolve(keyExpression, method, args));
+    }
+
+    private KeyExpression compile(String keyExpression, Method method) {
+        String[] parameterNames = discoverer.getParameterNames(method);
+        String trimmed = keyExpression.trim();
+        if (parameterNames != null && SIMPLE_VARIABLE.matcher(trimmed).matches()) {
+            String name = trimmed.substring(1);
+            for (int i = 0; i < parameterNames.length; i++) {
+                if (parameterNames[i].equals(name)) {
+                    return new KeyExpression(i, null, parameterNames);
+                }
+            }
+        }
+        return new KeyExpression(-1, parser.parseExpression(keyExpression), parameterNames);
+    }
+
+    /**
+     * 解析后的表达式
+     */
+    private static class KeyExpression {
+
+        /**
+         * 直接引用的参数下标，-1 表示需要执行 SpEL
+         */
+        private final int parameterIndex;
+
+        private final Expression expression;
+
+        private final String[] parameterNames;
+
+        KeyExpression(int parameterIndex, Expression expression, String[] parameterNames) {
+            this.parameterIndex = parameterIndex;
+            this.expression = expression;
+            this.parameterNames = parameterNames;
+        }
+
+        Object getValue(Object[] args, Object result) {
+            if (parameterIndex >= 0) {
+                return args[parameterIndex];
+            }
+            EvaluationContext context = new StandardEvaluationContext();
+            if (parameterNames != null) {
+                for (int i = 0; i < parameterNames.length; i++) {
+                    context.setVariable(parameterNames[i], args[i]);
+                }
+            }
+            if (result != null) {
+                context.setVariable("result", result);
+            }
+            return expression.getValue(context);
+        }
+    }
+}
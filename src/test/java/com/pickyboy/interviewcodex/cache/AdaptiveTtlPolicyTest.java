@@ -0,0 +1,74 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应过期时间测试（不依赖 Spring 容器）
+ *
+ * @author pickyboy
+ */
+class AdaptiveTtlPolicyTest {
+
+    private final AdaptiveTtlPolicy policy = new AdaptiveTtlPolicy(new AutoCacheProperties());
+
+    @Test
+    @DisplayName("读多且未失效的键延长到倍数上限，未跟踪或样本不足的键保持原值")
+    void testReadHeavyExtended() {
+        assertEquals(300, policy.expireTime("question_detail::1", 300));
+        for (int i = 0; i < 3; i++) {
+            policy.recordRead("question_detail::1");
+        }
+        assertEquals(300, policy.expireTime("question_detail::1", 300));
+        for (int i = 0; i < 1000; i++) {
+            policy.recordRead("question_detail::1");
+        }
+        assertEquals(1200, policy.expireTime("question_detail::1", 300));
+        // 超过上限时取上限
+        assertEquals(86400, policy.expireTime("question_detail::1", 86400));
+    }
+
+    @Test
+    @DisplayName("频繁失效的键缩短到倍数下限，读取少但从未失效的键不缩短")
+    void testChurnyShortened() {
+        for (int i = 0; i < 10; i++) {
+            policy.recordRead("question_detail::2");
+            policy.recordInvalidation("question_detail::2");
+        }
+        assertEquals(75, policy.expireTime("question_detail::2", 300));
+
+        for (int i = 0; i < 10; i++) {
+            policy.recordRead("question_detail::3");
+        }
+        assertEquals(300, policy.expireTime("question_detail::3", 300));
+    }
+
+    @Test
+    @DisplayName("软过期时间跟随调整后的过期时间，真正过期前保留原来的刷新窗口")
+    void testRefreshAheadFollowsAdaptiveTtl() {
+        // question_detail：expireTime 300，refreshAhead 240，刷新窗口 60 秒
+        for (int i = 0; i < 10; i++) {
+            policy.recordRead("question_detail::4");
+            policy.recordInvalidation("question_detail::4");
+        }
+        int shortened = policy.expireTime("question_detail::4", 300);
+        assertEquals(75, shortened);
+        // 75 - 60 = 15 秒早于按比例的 60 秒，取 60 秒
+        assertEquals(60, AdaptiveTtlPolicy.refreshAfter(shortened, 300, 240));
+
+        for (int i = 0; i < 1000; i++) {
+            policy.recordRead("question_detail::5");
+        }
+        int extended = policy.expireTime("question_detail::5", 300);
+        assertEquals(1200, extended);
+        assertEquals(1140, AdaptiveTtlPolicy.refreshAfter(extended, 300, 240));
+
+        // 未调整时和注解配置一致
+        assertEquals(240, AdaptiveTtlPolicy.refreshAfter(300, 300, 240));
+        // bank_detail：缩短到 900 秒，小于 1800 秒的刷新窗口，按比例在 450 秒后软过期，而不是写入即软过期
+        assertEquals(450, AdaptiveTtlPolicy.refreshAfter(900, 3600, 1800));
+    }
+}
@@ -0,0 +1,337 @@
+package com.pickyboy.interviewcodex.cache;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickyboy.interviewcodex.cache.codec.CacheValueSerializer;
+import com.pickyboy.interviewcodex.cache.codec.JacksonCacheValueCodec;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.InMemoryCacheMessageBus;
+import com.pickyboy.interviewcodex.cache.storage.InMemoryCacheStorage;
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存引擎压测（不依赖 Spring 容器、Redis 和数据库）
+ * <p>
+ * 使用 InMemoryCacheStorage 代替 Redis，并发回放命中、未命中、失效和过期：
+ * 写线程更新“数据库”中的版本号后清除缓存，清除完成后发布已提交的版本；
+ * 读线程在调用前读取已提交的版本，调用返回的版本不能更小，否则说明失效之后仍然读到了旧值。
+ * 压测结束后停止写入和时钟，校验回源次数：缓存命中不回源，开启击穿防护时并发未命中只回源一次。
+ * 每种 L1/L2 配置的吞吐量和 p99 延迟记录到日志，只作参考，不参与断言。
+ *
+ * @author pickyboy
+ */
+@Slf4j
+class CacheEngineHarnessTest {
+
+    private static final int KEY_COUNT = 64;
+
+    private static final int READER_COUNT = 8;
+
+    private static final int WRITER_COUNT = 2;
+
+    private static final long DURATION_MILLIS = 1500;
+
+    private static final long WARM_UP_MILLIS = 300;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+    private final Map<Long, AtomicLong> database = new ConcurrentHashMap<>();
+
+    private final Map<Long, AtomicLong> committed = new ConcurrentHashMap<>();
+
+    /**
+     * 原方法（回源）的执行次数
+     */
+    private final AtomicLong loads = new AtomicLong();
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    private CacheUtils cacheUtils;
+
+    private VersionedRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // 每次读写的 debug 日志会成为压测的瓶颈
+        ((Logger) LoggerFactory.getLogger("com.pickyboy.interviewcodex.cache")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger(CacheEngineHarnessTest.class)).setLevel(Level.INFO);
+        AutoCacheProperties properties = new AutoCacheProperties();
+        properties.setHotKeyThreshold(1000);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InMemoryCacheStorage storage = new InMemoryCacheStorage(clock::get);
+        InMemoryCacheMessageBus messageBus = new InMemoryCacheMessageBus();
+        CacheInvalidationFence fence = new CacheInvalidationFence();
+        HotKeyOracle hotKeyOracle = new HotKeyOracle(new LocalHotKeyDetector(storage, properties), properties, false);
+        LocalCacheManager localCacheManager = new LocalCacheManager(properties, hotKeyOracle, meterRegistry, fence);
+        AdaptiveTtlPolicy adaptiveTtlPolicy = new AdaptiveTtlPolicy(properties);
+        CacheSchemaRegistry schemaRegistry = new CacheSchemaRegistry(storage, properties);
+        CacheTagIndex tagIndex = new CacheTagIndex(storage, properties);
+        CacheWriteBehindQueue writeBehindQueue = new CacheWriteBehindQueue(storage, tagIndex, fence, properties, meterRegistry);
+        // 失效总线和访问统计使用内存实现，不启动后台线程
+        CacheInvalidationBus invalidationBus = new CacheInvalidationBus(messageBus, localCacheManager, properties,
+                adaptiveTtlPolicy);
+        refreshExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(16));
+        AutoCacheAspect aspect = new AutoCacheAspect(storage,
+                new CacheValueSerializer(new JacksonCacheValueCodec("json", new ObjectMapper()), 1024),
+                localCacheManager, new SpelKeyResolver("immediate"), tagIndex,
+                new AutoCacheMetrics(meterRegistry, localCacheManager), new CacheAccessRecorder(storage, properties),
+                new IdBloomFilterManager(messageBus, null, properties), writeBehindQueue, adaptiveTtlPolicy, schemaRegistry,
+                fence, refreshExecutor);
+        cacheUtils = new CacheUtils(storage, localCacheManager, invalidationBus, tagIndex, writeBehindQueue,
+                adaptiveTtlPolicy, schemaRegistry, fence);
+
+        for (long id = 0; id < KEY_COUNT * 3; id++) {
+            database.put(id, new AtomicLong());
+            committed.put(id, new AtomicLong());
+        }
+        AspectJProxyFactory factory = new AspectJProxyFactory(new VersionedRepository(database, loads));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        repository = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshExecutor.shutdownNow();
+        ((Logger) LoggerFactory.getLogger("com.pickyboy.interviewcodex.cache")).setLevel(null);
+        ((Logger) LoggerFactory.getLogger(CacheEngineHarnessTest.class)).setLevel(null);
+    }
+
+    @Test
+    @DisplayName("并发读写下失效是线性一致的，缓存命中不回源，击穿防护合并并发回源")
+    void testLinearizableInvalidation() throws Exception {
+        Map<String, LongFunction<VersionedItem>> configs = new LinkedHashMap<>();
+        configs.put("L1+L2", repository::getWithLocal);
+        configs.put("L2 only", repository::getWithoutLocal);
+        configs.put("L1+L2 no single-flight", repository::getWithoutProtection);
+        // 预热一轮，避免第一种配置承担类加载和 JIT 的开销
+        int offset = 0;
+        for (Map.Entry<String, LongFunction<VersionedItem>> config : configs.entrySet()) {
+            run(config.getKey(), config.getValue(), offset, WARM_UP_MILLIS);
+            offset += KEY_COUNT;
+        }
+        List<String> reports = new ArrayList<>();
+        offset = 0;
+        for (Map.Entry<String, LongFunction<VersionedItem>> config : configs.entrySet()) {
+            reports.add(run(config.getKey(), config.getValue(), offset, DURATION_MILLIS));
+            assertLoads(config.getKey(), config.getValue(), offset);
+            offset += KEY_COUNT;
+        }
+        reports.forEach(log::info);
+    }
+
+    /**
+     * 写入和时钟都已停止：清除一个键后并发读取，开启击穿防护的配置只回源一次，之后的读取全部命中
+     */
+    private void assertLoads(String name, LongFunction<VersionedItem> reader, long id) throws Exception {
+        cacheUtils.evictCache(sceneOf(name), id);
+        long before = loads.get();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < READER_COUNT; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                assertNotNull(reader.apply(id));
+            }, "harness-miss-" + i));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long missLoads = loads.get() - before;
+        if (sceneOf(name).equals("harness_unprotected")) {
+            assertTrue(missLoads >= 1 && missLoads <= READER_COUNT, name + ": loads on concurrent miss " + missLoads);
+        } else {
+            assertEquals(1, missLoads, name + ": concurrent misses were not coalesced");
+        }
+
+        before = loads.get();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(database.get(id).get(), reader.apply(id).getVersion());
+        }
+        assertEquals(0, loads.get() - before, name + ": cache hits invoked the loader");
+    }
+
+    /**
+     * 每种配置使用自己的一段ID，写线程只清除本配置的场景
+     */
+    private String run(String name, LongFunction<VersionedItem> reader, int offset, long durationMillis)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + durationMillis;
+        AtomicLong violations = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        long loadsBefore = loads.get();
+        List<long[]> latencies = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        long[] readCounts = new long[READER_COUNT];
+
+        for (int i = 0; i < READER_COUNT; i++) {
+            int index = i;
+            long[] samples = new long[1 << 20];
+            latencies.add(samples);
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int count = 0;
+                // 至少读一次，单核机器上预热轮的读线程可能一直等不到调度
+                do {
+                    long id = offset + random.nextLong(KEY_COUNT);
+                    long floor = committed.get(id).get();
+                    long start = System.nanoTime();
+                    VersionedItem item = reader.apply(id);
+                    samples[count % samples.length] = System.nanoTime() - start;
+                    count++;
+                    if (item == null || item.getVersion() < floor) {
+                        violations.incrementAndGet();
+                    }
+                } while (System.currentTimeMillis() < deadline);
+                readCounts[index] = count;
+            }, "harness-reader-" + i));
+        }
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.currentTimeMillis() < deadline) {
+                    long id = offset + random.nextLong(KEY_COUNT);
+                    long version = database.get(id).incrementAndGet();
+                    cacheUtils.evictCache(sceneOf(name), id);
+                    committed.get(id).accumulateAndGet(version, Math::max);
+                    writes.incrementAndGet();
+                    LockSupport.parkNanos(random.nextLong(200_000));
+                }
+            }, "harness-writer-" + i));
+        }
+        // 推进存储的时钟，L2 中的值大约每 20ms 过期一轮
+        threads.add(new Thread(() -> {
+            while (System.currentTimeMillis() < deadline) {
+                clock.addAndGet(100);
+                LockSupport.parkNanos(1_000_000);
+            }
+        }, "harness-clock"));
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long reads = Arrays.stream(readCounts).sum();
+        long[] merged = new long[(int) Math.min(reads, (long) READER_COUNT << 20)];
+        int count = 0;
+        for (int i = 0; i < READER_COUNT; i++) {
+            int length = (int) Math.min(readCounts[i], latencies.get(i).length);
+            System.arraycopy(latencies.get(i), 0, merged, count, length);
+            count += length;
+        }
+        Arrays.sort(merged, 0, count);
+        long p99 = count == 0 ? 0 : merged[(int) (count * 0.99)];
+
+        long runLoads = loads.get() - loadsBefore;
+
+        assertTrue(reads > 0);
+        assertEquals(0, violations.get(), name + ": reads returned a version older than the last committed write");
+        // 每次回源都对应一次读取，缓存未生效时两者相等
+        assertTrue(runLoads > 0 && runLoads <= reads, name + ": loads " + runLoads + ", reads " + reads);
+        return String.format("%-24s reads: %,9d (%,.0f ops/s)  loads: %,7d  writes: %,7d  p99: %,8.1f us", name,
+                reads, reads * 1000.0 / durationMillis, runLoads, writes.get(), p99 / 1000.0);
+    }
+
+    private static String sceneOf(String name) {
+        switch (name) {
+            case "L2 only":
+                return "harness_l2";
+            case "L1+L2 no single-flight":
+                return "harness_unprotected";
+            default:
+                return "harness_l1";
+        }
+    }
+
+    /**
+     * 模拟数据库，读取时随机停顿以放大回源和失效之间的竞争
+     */
+    static class VersionedRepository {
+
+        private final Map<Long, AtomicLong> database;
+
+        private final AtomicLong loads;
+
+        VersionedRepository() {
+            this(null, null);
+        }
+
+        VersionedRepository(Map<Long, AtomicLong> database, AtomicLong loads) {
+            this.database = database;
+            this.loads = loads;
+        }
+
+        @AutoCache(scene = "harness_l1", keyExpression = "#id", expireTime = 2, localExpireTime = 1)
+        public VersionedItem getWithLocal(long id) {
+            return load(id);
+        }
+
+        @AutoCache(scene = "harness_l2", keyExpression = "#id", expireTime = 2, enableL1 = false)
+        public VersionedItem getWithoutLocal(long id) {
+            return load(id);
+        }
+
+        @AutoCache(scene = "harness_unprotected", keyExpression = "#id", expireTime = 2, localExpireTime = 1,
+                enableBreakdownProtection = false)
+        public VersionedItem getWithoutProtection(long id) {
+            return load(id);
+        }
+
+        private VersionedItem load(long id) {
+            loads.incrementAndGet();
+            long version = database.get(id).get();
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(50_000));
+            return new VersionedItem(id, version);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class VersionedItem {
+
+        private long id;
+
+        private long version;
+    }
+}
@@ -0,0 +1,133 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickyboy.interviewcodex.cache.codec.CacheValueSerializer;
+import com.pickyboy.interviewcodex.cache.codec.JacksonCacheValueCodec;
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.InMemoryCacheMessageBus;
+import com.pickyboy.interviewcodex.cache.storage.InMemoryCacheStorage;
+import com.pickyboy.interviewcodex.model.vo.QuestionBankVO;
+import com.pickyboy.interviewcodex.model.vo.QuestionVO;
+import com.pickyboy.interviewcodex.utils.SpelKeyResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存值结构版本测试（不依赖 Spring 容器和 Redis）
+ *
+ * @author pickyboy
+ */
+class CacheSchemaRegistryTest {
+
+    private Map<Long, QuestionVO> questionMap;
+
+    private List<QuestionVO> questionList;
+
+    @Test
+    @DisplayName("相同结构的版本稳定，不同结构的版本不同，版本插入在场景之后")
+    void testFingerprintAndRedisKey() throws Exception {
+        String version = CacheSchemaRegistry.fingerprint(QuestionVO.class);
+        assertEquals(version, CacheSchemaRegistry.fingerprint(QuestionVO.class));
+        assertEquals(8, version.length());
+        assertNotEquals(version, CacheSchemaRegistry.fingerprint(QuestionBankVO.class));
+
+        // 泛型参数也参与计算
+        String mapVersion = CacheSchemaRegistry.fingerprint(getClass().getDeclaredField("questionMap").getGenericType());
+        String listVersion = CacheSchemaRegistry.fingerprint(getClass().getDeclaredField("questionList").getGenericType());
+        assertNotEquals(mapVersion, listVersion);
+
+        assertEquals("question_detail:" + version + "::1", CacheSchemaRegistry.redisKey("question_detail::1", version));
+    }
+
+    @Test
+    @DisplayName("批量方法按 Map 的值类型计算版本，批量写入的缓存能被单条查询读到")
+    void testBatchAndSingleShareKeys() throws Exception {
+        InMemoryCacheStorage storage = new InMemoryCacheStorage(System::currentTimeMillis);
+        AutoCacheProperties properties = new AutoCacheProperties();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InMemoryCacheMessageBus messageBus = new InMemoryCacheMessageBus();
+        CacheInvalidationFence fence = new CacheInvalidationFence();
+        HotKeyOracle hotKeyOracle = new HotKeyOracle(new LocalHotKeyDetector(storage, properties), properties, false);
+        LocalCacheManager localCacheManager = new LocalCacheManager(properties, hotKeyOracle, meterRegistry, fence);
+        AdaptiveTtlPolicy adaptiveTtlPolicy = new AdaptiveTtlPolicy(properties);
+        CacheSchemaRegistry schemaRegistry = new CacheSchemaRegistry(storage, properties);
+        CacheTagIndex tagIndex = new CacheTagIndex(storage, properties);
+        ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(16));
+        AutoCacheAspect aspect = new AutoCacheAspect(storage,
+                new CacheValueSerializer(new JacksonCacheValueCodec("json", new ObjectMapper()), 1024),
+                localCacheManager, new SpelKeyResolver("immediate"), tagIndex,
+                new AutoCacheMetrics(meterRegistry, localCacheManager), new CacheAccessRecorder(storage, properties),
+                new IdBloomFilterManager(messageBus, null, properties),
+                new CacheWriteBehindQueue(storage, tagIndex, fence, properties, meterRegistry), adaptiveTtlPolicy,
+                schemaRegistry, fence, refreshExecutor);
+        AtomicInteger loads = new AtomicInteger();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new QuestionRepository(loads));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        QuestionRepository repository = factory.getProxy();
+        try {
+            Method batchMethod = QuestionRepository.class.getMethod("getQuestions", List.class);
+            Method singleMethod = QuestionRepository.class.getMethod("getQuestion", Long.class);
+            assertEquals(schemaRegistry.version(batchMethod.getAnnotation(AutoCache.class), batchMethod),
+                    schemaRegistry.version(singleMethod.getAnnotation(AutoCache.class), singleMethod));
+
+            // 不使用本地缓存，单条查询只能从 Redis 读到批量写入的值
+            assertEquals(2, repository.getQuestions(List.of(1L, 2L)).size());
+            assertEquals(2, loads.get());
+            assertEquals(Long.valueOf(2), repository.getQuestion(2L).getId());
+            assertEquals(2, loads.get());
+        } finally {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    static class QuestionRepository {
+
+        private final AtomicInteger loads;
+
+        QuestionRepository() {
+            this(null);
+        }
+
+        QuestionRepository(AtomicInteger loads) {
+            this.loads = loads;
+        }
+
+        @AutoCache(scene = "schema_shared", keyExpression = "#id", enableL1 = false)
+        public QuestionVO getQuestion(Long id) {
+            loads.incrementAndGet();
+            return load(id);
+        }
+
+        @AutoCache(scene = "schema_shared", keyExpression = "#ids", isBatch = true, enableL1 = false)
+        public Map<Long, QuestionVO> getQuestions(List<Long> ids) {
+            Map<Long, QuestionVO> result = new LinkedHashMap<>();
+            for (Long id : ids) {
+                loads.incrementAndGet();
+                result.put(id, load(id));
+            }
+            return result;
+        }
+
+        private QuestionVO load(Long id) {
+            QuestionVO questionVO = new QuestionVO();
+            questionVO.setId(id);
+            return questionVO;
+        }
+    }
+}
@@ -6,16 +6,19 @@ import com.pickyboy.interviewcodex.model.vo.QuestionBankVO;
 import com.pickyboy.interviewcodex.model.vo.QuestionVO;
 import com.pickyboy.interviewcodex.service.QuestionBankService;
 import com.pickyboy.interviewcodex.service.QuestionService;
+import com.pickyboy.interviewcodex.service.impl.QuestionServiceImpl;
 import org.junit.jupiter.api.*;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,6 +53,9 @@ class CacheSystemTest {
     @Autowired
     private CacheUtils cacheUtils;
 
+    @Autowired
+    private CacheSchemaRegistry cacheSchemaRegistry;
+
     // 测试数据
     private static Long testQuestionId;
     private static Long testQuestionBankId;
@@ -113,7 +119,7 @@ class CacheSystemTest {
 
         // 验证缓存键是否存在
         String cacheKey = "question_detail::" + testQuestionId;
-        assertTrue(redissonClient.getBucket(cacheKey).isExists());
+        assertTrue(awaitInRedis(cacheKey));
 
         // 验证第二次调用更快（从缓存获取）
         assertTrue(secondCallTime < firstCallTime);
@@ -139,12 +145,9 @@ class CacheSystemTest {
         assertNotNull(bankVO2);
         assertNotNull(bankVO2.getQuestionPage());
 
-        // 验证两种缓存键都存在
-        String cacheKey1 = "bank_detail::" + testQuestionBankId + "_false";
-        String cacheKey2 = "bank_detail::" + testQuestionBankId + "_true";
-
-        assertTrue(redissonClient.getBucket(cacheKey1).isExists());
-        assertTrue(redissonClient.getBucket(cacheKey2).isExists());
+        // 两种变体是同一个 Hash 的不同字段
+        String cacheKey = "bank_detail::" + testQuestionBankId;
+        assertTrue(awaitInRedis(cacheKey));
 
         System.out.println("多状态缓存测试通过");
     }
@@ -156,7 +159,7 @@ class CacheSystemTest {
         // 先确保数据被缓存
         questionService.getCacheQuestionVO(testQuestionId);
         String cacheKey = "question_detail::" + testQuestionId;
-        assertTrue(redissonClient.getBucket(cacheKey).isExists());
+        assertTrue(awaitInRedis(cacheKey));
 
         // 更新数据，应该自动清除缓存
         Question updateQuestion = new Question();
@@ -165,7 +168,7 @@ class CacheSystemTest {
         questionService.updateQuestionWithCache(updateQuestion);
 
         // 验证缓存已被清除
-        assertFalse(redissonClient.getBucket(cacheKey).isExists());
+        assertFalse(existsInRedis(cacheKey));
 
         // 再次获取数据，应该是更新后的数据
         QuestionVO updatedVO = questionService.getCacheQuestionVO(testQuestionId);
@@ -185,7 +188,7 @@ class CacheSystemTest {
         for (Long id : questionIds) {
             questionService.getCacheQuestionVO(id);
             String cacheKey = "question_detail::" + id;
-            assertTrue(redissonClient.getBucket(cacheKey).isExists());
+            assertTrue(awaitInRedis(cacheKey));
         }
 
         // 使用CacheUtils直接测试批量缓存清除，而不是删除数据
@@ -195,7 +198,7 @@ class CacheSystemTest {
         // 验证所有缓存都被清除
         for (Long id : questionIds) {
             String cacheKey = "question_detail::" + id;
-            assertFalse(redissonClient.getBucket(cacheKey).isExists());
+            assertFalse(existsInRedis(cacheKey));
         }
 
         System.out.println("批量缓存清除测试通过");
@@ -218,13 +221,13 @@ class CacheSystemTest {
             // 先缓存数据
             questionService.getCacheQuestionVO(tempQuestionId);
             String cacheKey = "question_detail::" + tempQuestionId;
-            assertTrue(redissonClient.getBucket(cacheKey).isExists());
+            assertTrue(awaitInRedis(cacheKey));
 
             // 执行真正的批量删除（这会清除缓存）
             questionService.batchDeleteQuestionsWithCache(Arrays.asList(tempQuestionId));
 
             // 验证缓存被清除
-            assertFalse(redissonClient.getBucket(cacheKey).isExists());
+            assertFalse(existsInRedis(cacheKey));
 
             // 验证数据已被删除
             Question deletedQuestion = questionService.getById(tempQuestionId);
@@ -265,7 +268,7 @@ class CacheSystemTest {
 
         // 验证缓存只被创建一次
         String cacheKey = "question_detail::" + testQuestionId;
-        assertTrue(redissonClient.getBucket(cacheKey).isExists());
+        assertTrue(awaitInRedis(cacheKey));
 
         System.out.println("并发缓存安全性测试通过");
     }
@@ -311,15 +314,14 @@ class CacheSystemTest {
     void testCachePerformance() {
         int iterations = 50;
 
-        // 清除可能存在的缓存
-        String cacheKey = "question_detail::" + testQuestionId;
-        redissonClient.getBucket(cacheKey).delete();
+        // 清除可能存在的缓存（包括本地缓存和所有结构版本的键）
+        cacheUtils.evictCache("question_detail", testQuestionId);
 
         // 测试无缓存情况下的性能
         long startTime = System.currentTimeMillis();
         for (int i = 0; i < iterations; i++) {
             // 每次都清除缓存，模拟无缓存情况
-            redissonClient.getBucket(cacheKey).delete();
+            cacheUtils.evictCache("question_detail", testQuestionId);
             questionService.getCacheQuestionVO(testQuestionId);
         }
         long noCacheTime = System.currentTimeMillis() - startTime;
@@ -388,7 +390,7 @@ class CacheSystemTest {
 
         // 验证空值被缓存
         String cacheKey = "question_detail::" + nonExistentId;
-        assertTrue(redissonClient.getBucket(cacheKey).isExists());
+        assertTrue(awaitInRedis(cacheKey));
 
         // 第二次查询，应该从缓存获取空值
         QuestionVO nullResult2 = questionService.getCacheQuestionVO(nonExistentId);
@@ -403,7 +405,7 @@ class CacheSystemTest {
     void testCacheBreakdownProtection() throws Exception {
         // 清除可能存在的缓存
         String cacheKey = "question_detail::" + testQuestionId;
-        redissonClient.getBucket(cacheKey).delete();
+        cacheUtils.evictCache("question_detail", testQuestionId);
 
         // 模拟大量并发请求同一个key
         int threadCount = 20;
@@ -429,7 +431,7 @@ class CacheSystemTest {
         }
 
         // 验证缓存已被设置
-        assertTrue(redissonClient.getBucket(cacheKey).isExists());
+        assertTrue(awaitInRedis(cacheKey));
 
         System.out.println("缓存击穿防护测试通过");
     }
@@ -437,32 +439,33 @@ class CacheSystemTest {
         @Test
     @Order(12)
     @DisplayName("测试缓存雪崩防护")
-    void testCacheAvalancheProtection() {
+    void testCacheAvalancheProtection() throws Exception {
         // 创建一个带随机过期时间的服务方法（模拟）
         Long testId = testQuestionId;
 
         // 清除可能存在的缓存
         String cacheKey = "question_detail::" + testId;
-        redissonClient.getBucket(cacheKey).delete();
+        cacheUtils.evictCache("question_detail", testId);
+        String redisKey = CacheSchemaRegistry.redisKey(cacheKey, questionDetailVersion());
 
         // 多次调用同一个方法，验证过期时间是否有随机性
         for (int i = 0; i < 5; i++) {
             // 清除缓存
-            redissonClient.getBucket(cacheKey).delete();
+            cacheUtils.evictCache("question_detail", testId);
 
             // 调用方法触发缓存
             QuestionVO result = questionService.getCacheQuestionVO(testId);
             assertNotNull(result);
 
             // 检查缓存是否存在并获取TTL
-            assertTrue(redissonClient.getBucket(cacheKey).isExists());
-            long ttl = redissonClient.getBucket(cacheKey).remainTimeToLive();
+            assertTrue(awaitInRedis(cacheKey));
+            long ttl = redissonClient.getBucket(redisKey).remainTimeToLive();
 
             System.out.println("第" + (i + 1) + "次缓存，剩余TTL: " + ttl + "ms");
 
-            // TTL应该在合理范围内（这里假设基础TTL是300秒）
+            // TTL应该在合理范围内（基础TTL是300秒，自适应过期时间最多延长到4倍，再加上60秒的随机部分）
             assertTrue(ttl > 0);
-            assertTrue(ttl <= 300 * 1000); // 转换为毫秒
+            assertTrue(ttl <= (300 * 4 + 60) * 1000L); // 转换为毫秒
         }
 
         System.out.println("缓存雪崩防护测试通过");
@@ -482,4 +485,33 @@ class CacheSystemTest {
 
         System.out.println("缓存边界情况测试通过");
     }
-}
\ No newline at end of file
+
+    /**
+     * 题目详情缓存当前使用的结构版本
+     */
+    private String questionDetailVersion() throws NoSuchMethodException {
+        Method method = QuestionServiceImpl.class.getMethod("getCacheQuestionVO", long.class);
+        return cacheSchemaRegistry.version(method.getAnnotation(AutoCache.class), method);
+    }
+
+    /**
+     * 题目详情和题库详情开启了异步写入，调用返回时 Redis 中可能还没有值，等待写入队列刷新后再检查
+     */
+    private boolean awaitInRedis(String cacheKey) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!existsInRedis(cacheKey)) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return true;
+    }
+
+    /**
+     * 缓存键的任意一个结构版本存在于 Redis 中
+     */
+    private boolean existsInRedis(String cacheKey) {
+        return redissonClient.getKeys().countExists(cacheSchemaRegistry.redisKeys(cacheKey).toArray(new String[0])) > 0;
+    }
+}
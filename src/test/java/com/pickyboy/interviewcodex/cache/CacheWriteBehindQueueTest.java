@@ -0,0 +1,80 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import com.pickyboy.interviewcodex.cache.storage.InMemoryCacheStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存异步写入队列测试（不启动写入线程，stop 时同步刷出剩余写入）
+ *
+ * @author pickyboy
+ */
+class CacheWriteBehindQueueTest {
+
+    private final InMemoryCacheStorage storage = new InMemoryCacheStorage();
+
+    private final AutoCacheProperties properties = new AutoCacheProperties();
+
+    private final CacheInvalidationFence fence = new CacheInvalidationFence();
+
+    private final CacheWriteBehindQueue queue = new CacheWriteBehindQueue(storage,
+            new CacheTagIndex(storage, properties), fence, properties, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("失效时取消待写入的值，回调只执行一次")
+    void testCancelPending() {
+        AtomicInteger callbacks = new AtomicInteger();
+        long ticket = fence.ticket();
+        assertTrue(queue.submit("scene::1", "scene::1", null, new byte[]{1}, 60, ticket,
+                Collections.emptySet(), callbacks::incrementAndGet));
+        queue.submit("scene::2", "scene::2", null, new byte[]{2}, 60, ticket, Collections.emptySet(), null);
+
+        fence.invalidate("scene::1", () -> queue.cancel("scene::1"));
+        assertEquals(1, callbacks.get());
+
+        queue.stop();
+        assertNull(storage.get("scene::1"));
+        assertArrayEquals(new byte[]{2}, storage.get("scene::2"));
+        assertEquals(1, callbacks.get());
+    }
+
+    @Test
+    @DisplayName("入队之后被失效过的值在写入时按序号跳过，已经失效的提交直接拒绝")
+    void testStaleTicketSkipped() {
+        long ticket = fence.ticket();
+        queue.submit("scene::1", "scene::1", null, new byte[]{1}, 60, ticket, Collections.emptySet(), null);
+        // 不取消，只记录失效
+        fence.invalidate("scene::1", null);
+
+        AtomicInteger callbacks = new AtomicInteger();
+        assertFalse(queue.submit("scene::1", "scene::1", null, new byte[]{1}, 60, ticket,
+                Collections.emptySet(), callbacks::incrementAndGet));
+        assertEquals(1, callbacks.get());
+
+        queue.stop();
+        assertNull(storage.get("scene::1"));
+    }
+
+    @Test
+    @DisplayName("同一个键只写入最新的值，被取代的写入立即执行回调")
+    void testLatestWins() {
+        AtomicInteger callbacks = new AtomicInteger();
+        long ticket = fence.ticket();
+        queue.submit("scene::1", "scene::1", null, new byte[]{1}, 60, ticket, Collections.emptySet(),
+                callbacks::incrementAndGet);
+        queue.submit("scene::1", "scene::1", null, new byte[]{2}, 60, ticket, Collections.emptySet(),
+                callbacks::incrementAndGet);
+        assertEquals(1, callbacks.get());
+
+        queue.stop();
+        assertArrayEquals(new byte[]{2}, storage.get("scene::1"));
+        assertEquals(2, callbacks.get());
+    }
+}
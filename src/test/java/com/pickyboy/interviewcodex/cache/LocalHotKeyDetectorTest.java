@@ -0,0 +1,75 @@
+package com.pickyboy.interviewcodex.cache;
+
+import com.pickyboy.interviewcodex.cache.config.AutoCacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地热点探测测试（不依赖 Spring 容器和 Redis）
+ *
+ * @author pickyboy
+ */
+class LocalHotKeyDetectorTest {
+
+    @Test
+    @DisplayName("访问次数达到阈值的键成为热点，热点数量不超过 topK")
+    void testThresholdAndTopK() {
+        AutoCacheProperties properties = new AutoCacheProperties();
+        properties.setHotKeyThreshold(10);
+        properties.setHotKeyTopK(2);
+        properties.setHotKeyWindow(60);
+        LocalHotKeyDetector detector = new LocalHotKeyDetector(null, properties);
+
+        for (int i = 0; i < 9; i++) {
+            assertFalse(detector.record("question_detail::1"));
+        }
+        assertTrue(detector.record("question_detail::1"));
+        for (int i = 0; i < 20; i++) {
+            detector.record("question_detail::2");
+        }
+        for (int i = 0; i < 30; i++) {
+            detector.record("question_detail::3");
+        }
+        // 表满后替换估计值最小的键
+        assertFalse(detector.isHot("question_detail::1"));
+        assertEquals("question_detail::3", detector.topKeys().get(0));
+        assertEquals(2, detector.topKeys().size());
+    }
+
+    @Test
+    @DisplayName("Count-Min Sketch 只会高估，滑出窗口后清零")
+    void testSketchWindow() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        SlidingCountMinSketch sketch = new SlidingCountMinSketch(4, 1024, 2, 200, clock::get);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("key-" + (i % 10));
+        }
+        assertTrue(sketch.estimate("key-1") >= 10);
+        // 只经过一个时间片时仍在窗口内
+        clock.addAndGet(100);
+        assertTrue(sketch.estimate("key-1") >= 10);
+        clock.addAndGet(200);
+        assertEquals(0, sketch.estimate("key-1"));
+    }
+
+    @Test
+    @DisplayName("热点的访问滑出窗口后不再计为热点")
+    void testHotKeyCoolsDown() {
+        AutoCacheProperties properties = new AutoCacheProperties();
+        properties.setHotKeyThreshold(10);
+        properties.setHotKeyWindow(60);
+        AtomicLong clock = new AtomicLong(1_000_000);
+        LocalHotKeyDetector detector = new LocalHotKeyDetector(null, properties, clock::get);
+
+        for (int i = 0; i < 9; i++) {
+            detector.record("question_detail::1");
+        }
+        assertTrue(detector.record("question_detail::1"));
+        clock.addAndGet(61_000);
+        assertFalse(detector.record("question_detail::1"));
+    }
+}
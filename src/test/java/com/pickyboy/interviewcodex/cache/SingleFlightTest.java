@@ -0,0 +1,82 @@
+package com.pickyboy.interviewcodex.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求合并测试（不依赖 Spring 容器）
+ *
+ * @author pickyboy
+ */
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("并发加载同一个key只执行一次")
+    void testConcurrentLoadOnce() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(5000);
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threadCount = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        List<Future<Object>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> execute(singleFlight, "question_detail::1", () -> {
+            loadCount.incrementAndGet();
+            leaderStarted.countDown();
+            release.await();
+            return "value";
+        })));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < threadCount; i++) {
+            futures.add(executor.submit(() -> execute(singleFlight, "question_detail::1", () -> {
+                loadCount.incrementAndGet();
+                return "other";
+            })));
+        }
+        // 等待者都已进入等待后再放行 leader
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<Object> future : futures) {
+            assertEquals("value", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loadCount.get());
+        assertEquals(0, singleFlight.inFlightCount());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("加载异常原样抛出，失败后可以重新加载")
+    void testExceptionPropagation() throws Throwable {
+        SingleFlight singleFlight = new SingleFlight(5000);
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("bank_detail::1", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("ok", singleFlight.execute("bank_detail::1", () -> "ok"));
+    }
+
+    /**
+     * 线程池任务只能抛出 Exception，这里把 Throwable 包装一下
+     */
+    private static Object execute(SingleFlight singleFlight, String key, SingleFlight.Loader loader) throws Exception {
+        try {
+            return singleFlight.execute(key, loader);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new Exception(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.pickyboy.interviewcodex.cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存值序列化测试（不依赖 Spring 容器）
+ *
+ * @author pickyboy
+ */
+class CacheValueSerializerTest {
+
+    private final CacheValueSerializer serializer =
+            new CacheValueSerializer(new JacksonCacheValueCodec("smile", new ObjectMapper(new SmileFactory())), 1024);
+
+    @Test
+    @DisplayName("超过阈值的值压缩后可以还原，并带上软过期时间")
+    void testCompressRoundTrip() {
+        List<String> value = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            value.add("题目内容题目内容题目内容-" + i);
+        }
+        long softExpireAt = System.currentTimeMillis() + 60000;
+        byte[] bytes = serializer.serialize(value, softExpireAt);
+        assertEquals(0x03, bytes[0]);
+
+        JavaType type = serializer.getCodec().constructType(List.class);
+        CacheFrame frame = serializer.deserialize(bytes, type);
+        assertNotNull(frame);
+        assertEquals(value, frame.getValue());
+        assertEquals(softExpireAt, frame.getSoftExpireAt());
+        assertFalse(frame.isSoftExpired());
+    }
+
+    @Test
+    @DisplayName("小值不压缩，无法识别的数据按未命中处理")
+    void testSmallValueAndUnknownData() {
+        byte[] bytes = serializer.serialize("answer", 0);
+        assertEquals(0x00, bytes[0]);
+        CacheFrame frame = serializer.deserialize(bytes, serializer.getCodec().constructType(String.class));
+        assertEquals("answer", frame.getValue());
+
+        assertNull(serializer.deserialize("{\"id\":1}".getBytes(), serializer.getCodec().constructType(String.class)));
+    }
+
+    @Test
+    @DisplayName("空值缓存只有一个字节，旧格式的空值占位符按未命中处理")
+    void testNullFrame() {
+        assertEquals(1, CacheValueSerializer.NULL_FRAME.length);
+        assertTrue(CacheValueSerializer.isNullFrame(CacheValueSerializer.NULL_FRAME));
+        assertFalse(CacheValueSerializer.isNullFrame(serializer.serialize("", 0)));
+
+        byte[] legacy = ("NULL_PLACEHOLDER_" + System.currentTimeMillis()).getBytes();
+        assertFalse(CacheValueSerializer.isNullFrame(legacy));
+        assertNull(serializer.deserialize(legacy, serializer.getCodec().constructType(String.class)));
+    }
+}
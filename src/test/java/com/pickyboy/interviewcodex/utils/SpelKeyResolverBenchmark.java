@@ -0,0 +1,109 @@
+package com.pickyboy.interviewcodex.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 键表达式解析基准测试
+ * <p>
+ * legacy* 为切面原来的写法（每次调用都新建解析器并解析表达式），resolver* 为 SpelKeyResolver。
+ * 直接运行 main 方法，结果中的 gc.alloc.rate.norm 即每次调用的分配字节数。
+ *
+ * @author pickyboy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpelKeyResolverBenchmark {
+
+    private static final String SIMPLE_EXPRESSION = "#id";
+
+    private static final String COMPOSITE_EXPRESSION = "#id + '_' + #needList";
+
+    private Method method;
+
+    private Object[] args;
+
+    private SpelKeyResolver resolver;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = SpelKeyResolverBenchmark.class.getDeclaredMethod("getQuestionBank", Long.class, Boolean.class);
+        args = new Object[]{1024L, Boolean.TRUE};
+        resolver = new SpelKeyResolver("immediate");
+    }
+
+    @Benchmark
+    public String legacySimple() {
+        return legacyParse(SIMPLE_EXPRESSION, method, args);
+    }
+
+    @Benchmark
+    public String resolverSimple() {
+        return resolver.resolveKey(SIMPLE_EXPRESSION, method, args);
+    }
+
+    @Benchmark
+    public String legacyComposite() {
+        return legacyParse(COMPOSITE_EXPRESSION, method, args);
+    }
+
+    @Benchmark
+    public String resolverComposite() {
+        return resolver.resolveKey(COMPOSITE_EXPRESSION, method, args);
+    }
+
+    private static String legacyParse(String keyExpression, Method method, Object[] args) {
+        SpelExpressionParser parser = new SpelExpressionParser();
+        Expression expression = parser.parseExpression(keyExpression);
+        EvaluationContext context = new StandardEvaluationContext();
+        StandardReflectionParameterNameDiscoverer discoverer = new StandardReflectionParameterNameDiscoverer();
+        String[] parameterNames = discoverer.getParameterNames(method);
+        if (parameterNames != null) {
+            for (int i = 0; i < parameterNames.length; i++) {
+                context.setVariable(parameterNames[i], args[i]);
+            }
+        }
+        return String.valueOf(expression.getValue(context));
+    }
+
+    /**
+     * 与 QuestionBankService#getCachedQuestionBankVO 参数一致的示例方法
+     */
+    @SuppressWarnings("unused")
+    private static Object getQuestionBank(Long id, Boolean needList) {
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SpelKeyResolverBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}